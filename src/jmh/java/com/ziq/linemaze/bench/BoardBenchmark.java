@@ -0,0 +1,94 @@
+package com.ziq.linemaze.bench;
+
+import com.ziq.linemaze.MazeTile;
+import com.ziq.linemaze.rect.RectMazeModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The benchmarks of the tile lookups and the path enumeration of the whole board, on the dense boards up to 1024
+ * and the sparse board of 4096.
+ *
+ * @author ziq
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoardBenchmark {
+
+    @Param({"8", "128", "1024", "4096"})
+    private int size;
+
+    private RectMazeModel model;
+    private int[] xs;
+    private int[] ys;
+    private int cursor = 0;
+    private final PathCounter counter = new PathCounter();
+    private final Consumer<MazeTile> visitTile = new Consumer<MazeTile>() {
+        @Override
+        public void accept(MazeTile tile) {
+            tile.forEachPath(counter);
+        }
+    };
+
+    @Setup
+    public void setUp() {
+        model = new RectMazeModel(size, size, size / 2 + 1, size / 2 + 1, 42);
+        model.initModel(7);
+        // a long game to fill the board around the start.
+        for (int i = 0; i < size * 4 && model.getState() > 0; i++) {
+            model.next();
+        }
+        xs = new int[1024];
+        ys = new int[1024];
+        int i = 0;
+        for (MazeTile tile : model.getBoard()) {
+            if (i == xs.length) break;
+            xs[i] = tile.getX();
+            ys[i] = tile.getY();
+            i++;
+        }
+        // the remaining lookups mostly miss.
+        for (int j = i; j < xs.length; j++) {
+            xs[j] = xs[j % i] + 1;
+            ys[j] = ys[j % i];
+        }
+    }
+
+    @Benchmark
+    public MazeTile getTile() {
+        int i = cursor++ & 1023;
+        return model.getTile(xs[i], ys[i]);
+    }
+
+    @Benchmark
+    public MazeTile getTileByList() {
+        int i = cursor++ & 1023;
+        List<Integer> position = Arrays.asList(xs[i], ys[i]);
+        return model.getTile(position);
+    }
+
+    @Benchmark
+    public int forEachPath() {
+        counter.selected = 0;
+        model.getBoard().forEach(visitTile);
+        return counter.selected;
+    }
+}
@@ -0,0 +1,50 @@
+package com.ziq.linemaze.bench;
+
+import com.ziq.linemaze.rect.LineRectTile;
+import com.ziq.linemaze.rect.LineRectTileType;
+import com.ziq.linemaze.rect.RectMazeModel;
+
+/**
+ * The fixtures building long chains of placed tiles.
+ *
+ * @author ziq
+ */
+final class Corridors {
+
+    /**
+     * The tile type leading the path straight to the left: entrance 2 to exit 7.
+     */
+    static final LineRectTileType STRAIGHT = straight();
+
+    private Corridors() {
+    }
+
+    private static LineRectTileType straight() {
+        for (int i = 0; i < LineRectTileType.COUNT; i++) {
+            LineRectTileType type = LineRectTileType.get(i);
+            if (type.exit(0, 2) == 7) return type;
+        }
+        throw new IllegalStateException();
+    }
+
+    /**
+     * Start a new game and lay a corridor of placed tiles on the left of the current tile, so the next move
+     * follows the path through all of them.
+     *
+     * @param model  the model.
+     * @param seed   the seed of the game.
+     * @param length the number of the placed tiles, limited by the area.
+     */
+    static void build(RectMazeModel model, long seed, int length) {
+        model.initModel(seed);
+        LineRectTile current = (LineRectTile) model.getCurrentTile();
+        current.setType(STRAIGHT);
+        current.setRotation(0);
+        int y = current.getY();
+        for (int i = 1; i <= length && current.getX() - i >= 1; i++) {
+            LineRectTile tile = new LineRectTile(STRAIGHT);
+            tile.setPosition(current.getX() - i, y);
+            model.getBoard().put(tile.getX(), y, tile);
+        }
+    }
+}
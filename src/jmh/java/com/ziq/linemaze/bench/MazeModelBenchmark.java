@@ -0,0 +1,179 @@
+package com.ziq.linemaze.bench;
+
+import com.ziq.linemaze.MazeModel;
+import com.ziq.linemaze.metrics.EngineMetrics;
+import com.ziq.linemaze.rect.RectMazeCodec;
+import com.ziq.linemaze.rect.RectMazeModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The benchmarks of the {@link MazeModel} actions on small, medium and large boards.
+ *
+ * @author ziq
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MazeModelBenchmark {
+
+    @Param({"8", "128", "1024"})
+    private int size;
+
+    private RectMazeModel model;
+    private long seed = 0;
+    private int corridor;
+    private byte[] saved;
+    private ByteBuffer snapshot;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() throws IOException {
+        model = new RectMazeModel(size, size, size / 2 + 1, size / 2 + 1, 42);
+        corridor = size / 2 - 1;
+        model.initModel(seed);
+        for (int i = 0; i < size; i++) {
+            model.next();
+            if (model.getState() <= MazeModel.STATE_END) break;
+        }
+        saved = save(model);
+        snapshot = ByteBuffer.allocate(RectMazeCodec.size(model) * 2);
+        RectMazeCodec.write(model, snapshot);
+    }
+
+    /**
+     * The state for the short chain: the path enters an empty cell right away.
+     */
+    @State(Scope.Thread)
+    public static class ShortChain {
+
+        @Setup(Level.Invocation)
+        public void setUp(MazeModelBenchmark benchmark) {
+            Corridors.build(benchmark.model, benchmark.seed++, 0);
+        }
+    }
+
+    /**
+     * The state for the long chain: the path goes through a corridor of half the board.
+     */
+    @State(Scope.Thread)
+    public static class LongChain {
+
+        @Setup(Level.Invocation)
+        public void setUp(MazeModelBenchmark benchmark) {
+            Corridors.build(benchmark.model, benchmark.seed++, benchmark.corridor);
+        }
+    }
+
+    /**
+     * The state for the long chain with the corridors indexed, to compare with {@link LongChain}.
+     */
+    @State(Scope.Thread)
+    public static class IndexedLongChain {
+
+        @Setup(Level.Invocation)
+        public void setUp(MazeModelBenchmark benchmark) {
+            Corridors.build(benchmark.model, benchmark.seed++, benchmark.corridor);
+            // index the corridor laid on the board.
+            benchmark.model.setSegmentIndexing(false);
+            benchmark.model.setSegmentIndexing(true);
+        }
+    }
+
+    /**
+     * The state for the short chain with the metrics enabled, to compare with {@link ShortChain}.
+     */
+    @State(Scope.Thread)
+    public static class MeteredChain {
+
+        private final EngineMetrics metrics = new EngineMetrics();
+
+        @Setup(Level.Invocation)
+        public void setUp(MazeModelBenchmark benchmark) {
+            benchmark.model.setMetrics(metrics);
+            Corridors.build(benchmark.model, benchmark.seed++, 0);
+        }
+    }
+
+    @Benchmark
+    public int nextShortChain(ShortChain chain) {
+        model.next();
+        return model.getPathNodes();
+    }
+
+    @Benchmark
+    public int nextLongChain(LongChain chain) {
+        model.next();
+        return model.getPathNodes();
+    }
+
+    @Benchmark
+    public int nextIndexedLongChain(IndexedLongChain chain) {
+        model.next();
+        return model.getPathNodes();
+    }
+
+    @Benchmark
+    public int nextMetered(MeteredChain chain) {
+        model.next();
+        return model.getPathNodes();
+    }
+
+    @Benchmark
+    public int rotate() {
+        model.rotate();
+        return model.getCurrentTile().getRotation();
+    }
+
+    @Benchmark
+    public byte[] save() throws IOException {
+        return save(model);
+    }
+
+    @Benchmark
+    public Object restore() throws IOException, ClassNotFoundException {
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(saved));
+        return in.readObject();
+    }
+
+    @Benchmark
+    public ByteBuffer saveBinary() {
+        snapshot.clear();
+        RectMazeCodec.write(model, snapshot);
+        return snapshot;
+    }
+
+    @Benchmark
+    public RectMazeModel restoreBinary() throws IOException {
+        snapshot.flip();
+        return RectMazeCodec.read(snapshot);
+    }
+
+    private static byte[] save(MazeModel model) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(model);
+        out.close();
+        return bytes.toByteArray();
+    }
+}
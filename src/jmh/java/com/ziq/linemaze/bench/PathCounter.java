@@ -0,0 +1,18 @@
+package com.ziq.linemaze.bench;
+
+import com.ziq.linemaze.MazeTile;
+
+/**
+ * The path visitor counting the accessed paths, consumed by the benchmarks.
+ *
+ * @author ziq
+ */
+class PathCounter implements MazeTile.PathVisitor {
+
+    int selected = 0;
+
+    @Override
+    public void visit(int a, int b, boolean selected) {
+        if (selected) this.selected++;
+    }
+}
@@ -0,0 +1,76 @@
+package com.ziq.linemaze.bench;
+
+import com.ziq.linemaze.MazeTile;
+import com.ziq.linemaze.rect.LineRectTile;
+import com.ziq.linemaze.rect.RectMazeModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The benchmarks of the {@link RectMazeModel} strategy and the tile creation.
+ *
+ * @author ziq
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RectMazeModelBenchmark {
+
+    @Param({"8", "128", "1024"})
+    private int size;
+
+    private RectMazeModel model;
+    private MazeTile tile;
+    private List<Integer> position;
+
+    @Setup
+    public void setUp() {
+        model = new RectMazeModel(size, size, size / 2 + 1, size / 2 + 1, 42);
+        model.initModel(7);
+        tile = model.getCurrentTile();
+        position = Arrays.asList(1, 1);
+    }
+
+    @Benchmark
+    public List<Integer> nextPosition() {
+        model.setExit(7);
+        return model.nextPosition(tile);
+    }
+
+    @Benchmark
+    public long nextKey() {
+        model.setExit(7);
+        return model.getStrategy().nextKey(model, tile);
+    }
+
+    @Benchmark
+    public MazeTile createTile() {
+        return model.createTile(position);
+    }
+
+    @Benchmark
+    public MazeTile createTileAt() {
+        return model.getStrategy().createTile(model, 1, 1);
+    }
+
+    @Benchmark
+    public MazeTile newLineRectTile() {
+        return new LineRectTile();
+    }
+}
@@ -0,0 +1,57 @@
+package com.ziq.linemaze.bench;
+
+import com.ziq.linemaze.MazeTile;
+import com.ziq.linemaze.rect.LineRectTile;
+import com.ziq.linemaze.rect.LineRectTileType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The benchmarks of the path traversal of a tile.
+ *
+ * @author ziq
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TileBenchmark {
+
+    private LineRectTile tile;
+    private final PathCounter counter = new PathCounter();
+
+    @Setup
+    public void setUp() {
+        tile = new LineRectTile(LineRectTileType.get(42));
+        tile.access(3);
+    }
+
+    @Benchmark
+    public void pathIterator(Blackhole blackhole) {
+        Iterator<MazeTile.Path> paths = tile.getPathIterator();
+        while (paths.hasNext()) {
+            blackhole.consume(paths.next());
+        }
+    }
+
+    @Benchmark
+    public int forEachPath() {
+        counter.selected = 0;
+        tile.forEachPath(counter);
+        return counter.selected;
+    }
+}
@@ -0,0 +1,166 @@
+package com.ziq.linemaze;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * The dense board backed by a flat array.
+ * <p>The cell (x, y) is stored at index {@code (y - minY) * width + (x - minX)}. It suits small, bounded boards
+ * where most of the cells get filled during a game.</p>
+ *
+ * @author ziq
+ */
+public class ArrayMazeBoard implements MazeBoard {
+
+    private final int minX;
+    private final int minY;
+    private final int width;
+    private final int height;
+    private final MazeTile[] cells;
+    private int size = 0;
+
+    /**
+     * Construct the board covering [0, width) x [0, height).
+     *
+     * @param width  the width of the board.
+     * @param height the height of the board.
+     */
+    public ArrayMazeBoard(int width, int height) {
+        this(0, 0, width, height);
+    }
+
+    /**
+     * Construct the board covering [minX, minX + width) x [minY, minY + height).
+     *
+     * @param minX   the smallest x coordinate.
+     * @param minY   the smallest y coordinate.
+     * @param width  the width of the board.
+     * @param height the height of the board.
+     */
+    public ArrayMazeBoard(int minX, int minY, int width, int height) {
+        if (width <= 0 || height <= 0 || (long) width * height > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Illegal board size: " + width + "x" + height);
+        }
+        this.minX = minX;
+        this.minY = minY;
+        this.width = width;
+        this.height = height;
+        this.cells = new MazeTile[width * height];
+    }
+
+    private int index(int x, int y) {
+        int dx = x - minX;
+        int dy = y - minY;
+        if (dx < 0 || dx >= width || dy < 0 || dy >= height) {
+            return -1;
+        }
+        return dy * width + dx;
+    }
+
+    @Override
+    public MazeTile get(int x, int y) {
+        int i = index(x, y);
+        return i < 0 ? null : cells[i];
+    }
+
+    @Override
+    public MazeTile put(int x, int y, MazeTile tile) {
+        int i = index(x, y);
+        if (i < 0) {
+            throw new IndexOutOfBoundsException("Position (" + x + ", " + y + ") is out of the board.");
+        }
+        MazeTile old = cells[i];
+        cells[i] = tile;
+        if (old == null && tile != null) size++;
+        else if (old != null && tile == null) size--;
+        return old;
+    }
+
+    @Override
+    public MazeTile remove(int x, int y) {
+        int i = index(x, y);
+        if (i < 0) return null;
+        MazeTile old = cells[i];
+        if (old != null) {
+            cells[i] = null;
+            size--;
+        }
+        return old;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(cells, null);
+            size = 0;
+        }
+    }
+
+    /**
+     * Perform the action for each tile, without allocating an iterator.
+     *
+     * @param action the action.
+     */
+    @Override
+    public void forEach(Consumer<? super MazeTile> action) {
+        for (MazeTile tile : cells) {
+            if (tile != null) action.accept(tile);
+        }
+    }
+
+    @Override
+    public Iterator<MazeTile> iterator() {
+        return new Iterator<MazeTile>() {
+
+            private int current = advance(0);
+
+            private int advance(int i) {
+                while (i < cells.length && cells[i] == null) i++;
+                return i;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return current < cells.length;
+            }
+
+            @Override
+            public MazeTile next() {
+                if (current >= cells.length) throw new NoSuchElementException();
+                try {
+                    return cells[current];
+                } finally {
+                    current = advance(current + 1);
+                }
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    public int getMinX() {
+        return minX;
+    }
+
+    public int getMinY() {
+        return minY;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+}
@@ -0,0 +1,219 @@
+package com.ziq.linemaze;
+
+import java.util.Arrays;
+
+/**
+ * The batch of the tile changes of a {@link MazeModel}, for the renderers to redraw only what changed.
+ * <p>Each change is a record of the tile position and its packed state before and after, see
+ * {@link MazeTile#getPackedState()}, so the accessed paths are the bits set in the after state only. The records are
+ * kept in one int array which is reused once drained, so a consumer draining into its own batch allocates nothing in
+ * the steady state and its cost is proportional to the change, not to the size of the board.</p>
+ * <p>When the changes cannot be described by records, for a new game, a restored snapshot or more records than the
+ * capacity, the batch is reset: the consumer must then rebuild its view from the board, and the batch records
+ * nothing more until it is drained.</p>
+ *
+ * @author ziq
+ */
+public final class ChangeBatch {
+
+    /**
+     * A tile placed on the board.
+     */
+    public static final int PLACED = 1;
+
+    /**
+     * A tile removed from the board, by an undo.
+     */
+    public static final int REMOVED = 2;
+
+    /**
+     * The current tile rotated.
+     */
+    public static final int ROTATED = 3;
+
+    /**
+     * A path of the tile accessed by the line.
+     */
+    public static final int ACCESSED = 4;
+
+    /**
+     * The state of the tile restored by an undo or a redo.
+     */
+    public static final int RESTORED = 5;
+
+    /**
+     * The default maximum number of records.
+     */
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private static final int FIELDS = 5;
+    private static final int INITIAL_RECORDS = 16;
+
+    private final int capacity;
+    private int[] records;
+    private int size;
+    private boolean reset;
+
+    /**
+     * Construct the batch of {@link #DEFAULT_CAPACITY} records.
+     */
+    public ChangeBatch() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Construct the batch.
+     *
+     * @param capacity the maximum number of records, beyond which the batch is reset.
+     */
+    public ChangeBatch(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Illegal capacity: " + capacity);
+        }
+        this.capacity = capacity;
+        this.records = new int[Math.min(capacity, INITIAL_RECORDS) * FIELDS];
+    }
+
+    /**
+     * Get the number of records.
+     *
+     * @return the number of records.
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0 && !reset;
+    }
+
+    /**
+     * Get whether the view must be rebuilt from the board, the records being then empty.
+     *
+     * @return true if reset.
+     */
+    public boolean isReset() {
+        return reset;
+    }
+
+    /**
+     * Get the kind of the record.
+     *
+     * @param index the index of the record.
+     * @return one of {@link #PLACED}, {@link #REMOVED}, {@link #ROTATED}, {@link #ACCESSED} and {@link #RESTORED}.
+     */
+    public int getKind(int index) {
+        return records[offset(index)];
+    }
+
+    public int getX(int index) {
+        return records[offset(index) + 1];
+    }
+
+    public int getY(int index) {
+        return records[offset(index) + 2];
+    }
+
+    /**
+     * Get the packed state of the tile before the change.
+     *
+     * @param index the index of the record.
+     * @return the packed state, 0 for a placed tile.
+     */
+    public int getBefore(int index) {
+        return records[offset(index) + 3];
+    }
+
+    /**
+     * Get the packed state of the tile after the change.
+     *
+     * @param index the index of the record.
+     * @return the packed state, 0 for a removed tile.
+     */
+    public int getAfter(int index) {
+        return records[offset(index) + 4];
+    }
+
+    private int offset(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+        return index * FIELDS;
+    }
+
+    /**
+     * Clear the records and the reset flag, keeping the buffer.
+     */
+    public void clear() {
+        size = 0;
+        reset = false;
+    }
+
+    /**
+     * Move the records and the reset flag to the target, clearing this batch.
+     *
+     * @param target the batch to fill, cleared first.
+     */
+    public void drainTo(ChangeBatch target) {
+        target.clear();
+        target.addAll(this);
+        clear();
+    }
+
+    /**
+     * Append the records of the source, or its reset flag.
+     */
+    void addAll(ChangeBatch source) {
+        if (source.reset) {
+            reset();
+        } else {
+            int[] records = source.records;
+            for (int i = 0; i < source.size; i++) {
+                int o = i * FIELDS;
+                add(records[o], records[o + 1], records[o + 2], records[o + 3], records[o + 4]);
+            }
+        }
+    }
+
+    /**
+     * Drop the records, the view being rebuilt from the board.
+     */
+    void reset() {
+        size = 0;
+        reset = true;
+    }
+
+    void add(int kind, int x, int y, int before, int after) {
+        if (reset) return;
+        if (kind == ROTATED && size > 0) {
+            // the rotations of the same tile collapse into one record.
+            int o = (size - 1) * FIELDS;
+            if (records[o] == ROTATED && records[o + 1] == x && records[o + 2] == y) {
+                records[o + 4] = after;
+                return;
+            }
+        }
+        if (size == capacity) {
+            reset();
+            return;
+        }
+        int o = size * FIELDS;
+        if (o == records.length) {
+            records = Arrays.copyOf(records, Math.min(capacity, size * 2) * FIELDS);
+        }
+        records[o] = kind;
+        records[o + 1] = x;
+        records[o + 2] = y;
+        records[o + 3] = before;
+        records[o + 4] = after;
+        size++;
+    }
+
+    @Override
+    public String toString() {
+        return "ChangeBatch{" +
+                "size=" + size +
+                ", reset=" + reset +
+                '}';
+    }
+}
@@ -0,0 +1,647 @@
+package com.ziq.linemaze;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * The unbounded board split into square chunks, which spills the chunks it no longer needs to a memory-mapped file.
+ * <p>A chunk is allocated on the first tile put in it. The resident chunks hold their tiles, since the model changes
+ * the tiles in place. A chunk is spilled when all its tiles are settled, that is closed or without any path, as
+ * soon as the board moves on to another chunk, and the least recently used chunk is spilled when more than the
+ * resident limit are in memory. A spilled chunk is only a slot of the spill file holding the kind and the packed
+ * state of each cell, found by a primitive map from the chunk to its slot and read back on the next access. So the
+ * heap holds a bounded number of chunks and a long and an int per spilled chunk, however long the game.</p>
+ * <p>A resident chunk counts its unsettled tiles. The tiles handed out by {@link #get(int, int)} and
+ * {@link #put(int, int, MazeTile)} may change, so their cells are noted and only those are checked again when the
+ * board moves on to another chunk.</p>
+ * <p>The chunk of the last tile put is never spilled, so the current tile of the model is always the one on the
+ * board. The tiles of a spilled chunk, when iterated, are detached copies. Since a spilled chunk forgets its tile
+ * objects, the board does not support the {@link MoveHistory}, which restores the tiles it keeps.</p>
+ *
+ * @author ziq
+ */
+public class ChunkedMazeBoard implements MazeBoard {
+
+    /**
+     * The encoding of the tiles in the spill file.
+     */
+    public interface TileCodec extends Serializable {
+
+        /**
+         * Get the kind of the tile.
+         *
+         * @param tile the tile.
+         * @return the kind, in [1, 127].
+         */
+        public int kind(MazeTile tile);
+
+        /**
+         * Get the state of the tile to spill.
+         *
+         * @param tile the tile.
+         * @return the packed state, {@link MazeTile#getPackedState()} by default.
+         */
+        public default int pack(MazeTile tile) {
+            return tile.getPackedState();
+        }
+
+        /**
+         * Create the tile from its kind and packed state.
+         *
+         * @param kind   the kind of the tile.
+         * @param packed the state of the tile, see {@link #pack(MazeTile)}.
+         * @param x      the x coordinate.
+         * @param y      the y coordinate.
+         * @return the {@link MazeTile}.
+         */
+        public MazeTile create(int kind, int packed, int x, int y);
+
+        /**
+         * Get whether the tile can no longer change.
+         *
+         * @param tile the tile.
+         * @return true if the tile is settled.
+         */
+        public default boolean isSettled(MazeTile tile) {
+            return tile.isClosed();
+        }
+    }
+
+    /**
+     * The default size of the side of a chunk, as a power of two.
+     */
+    public static final int DEFAULT_CHUNK_BITS = 5;
+
+    /**
+     * The default number of chunks held in memory.
+     */
+    public static final int DEFAULT_RESIDENT_CHUNKS = 256;
+
+    private static final int SLOTS_PER_SEGMENT = 256;
+
+    private final TileCodec codec;
+    private final int chunkBits;
+    private final int residentLimit;
+    private int size = 0;
+
+    private transient int cells;
+    private transient int slotBytes;
+    private transient LinkedHashMap<Long, Chunk> resident;
+    private transient Chunk last;
+    private transient Chunk pinned;
+
+    /**
+     * The open addressing map of the spilled chunks: key and slot plus one (0 when free).
+     */
+    private transient long[] spilledKeys;
+    private transient int[] spilledSlots;
+    private transient int spilledEntries;
+
+    /**
+     * The number of the spilled chunks which are not resident.
+     */
+    private transient int spilledCount;
+
+    private transient Path spillPath;
+    private transient FileChannel spill;
+    private transient List<MappedByteBuffer> segments;
+    private transient int slots;
+
+    /**
+     * Construct the board with the default chunks.
+     *
+     * @param codec the encoding of the tiles.
+     */
+    public ChunkedMazeBoard(TileCodec codec) {
+        this(codec, DEFAULT_CHUNK_BITS, DEFAULT_RESIDENT_CHUNKS);
+    }
+
+    /**
+     * Construct the board.
+     *
+     * @param codec         the encoding of the tiles.
+     * @param chunkBits     the size of the side of a chunk, as a power of two in [1, 10].
+     * @param residentLimit the number of chunks held in memory, at least 2.
+     */
+    public ChunkedMazeBoard(TileCodec codec, int chunkBits, int residentLimit) {
+        if (codec == null) throw new NullPointerException();
+        if (chunkBits < 1 || chunkBits > 10 || residentLimit < 2) {
+            throw new IllegalArgumentException("Illegal chunks: bits=" + chunkBits + ", resident=" + residentLimit);
+        }
+        this.codec = codec;
+        this.chunkBits = chunkBits;
+        this.residentLimit = residentLimit;
+        init();
+    }
+
+    private void init() {
+        cells = 1 << (chunkBits * 2);
+        slotBytes = 4 + cells + cells * 4;
+        resident = new LinkedHashMap<Long, Chunk>(16, 0.75f, true);
+        segments = new ArrayList<MappedByteBuffer>();
+        spilledKeys = new long[16];
+        spilledSlots = new int[16];
+        spilledEntries = 0;
+        spilledCount = 0;
+    }
+
+    private int index(int x, int y) {
+        int mask = (1 << chunkBits) - 1;
+        return ((y & mask) << chunkBits) | (x & mask);
+    }
+
+    /**
+     * Get the chunk of the position, loading it if spilled.
+     *
+     * @param create whether to allocate a missing chunk.
+     * @return the resident chunk, or null if missing and not created.
+     */
+    private Chunk chunk(int x, int y, boolean create) {
+        int cx = x >> chunkBits;
+        int cy = y >> chunkBits;
+        Chunk chunk = last;
+        if (chunk != null && chunk.cx == cx && chunk.cy == cy) return chunk;
+        long key = MazeBoard.key(cx, cy);
+        chunk = resident.get(key);
+        if (chunk == null) {
+            int slot = spilledSlot(key);
+            if (slot >= 0) {
+                if (count(slot) == 0 && !create) return null;
+                chunk = new Chunk(cx, cy);
+                chunk.slot = slot;
+                load(chunk);
+                spilledCount--;
+            } else {
+                if (!create) return null;
+                chunk = new Chunk(cx, cy);
+                chunk.tiles = new MazeTile[cells];
+                chunk.allocate(cells);
+            }
+            resident.put(key, chunk);
+        }
+        Chunk previous = last;
+        last = chunk;
+        if (previous != null && previous != pinned && previous.tiles != null && refresh(previous) == 0) {
+            evict(previous);
+        }
+        while (resident.size() > residentLimit) {
+            Iterator<Chunk> eldest = resident.values().iterator();
+            Chunk victim = eldest.next();
+            if (victim == chunk || victim == pinned) {
+                // keep the current ones, the limit is at least 2.
+                resident.get(MazeBoard.key(victim.cx, victim.cy));
+                continue;
+            }
+            evict(victim);
+        }
+        return chunk;
+    }
+
+    /**
+     * Check again the tiles handed out since the last check.
+     *
+     * @return the number of unsettled tiles of the chunk.
+     */
+    private int refresh(Chunk chunk) {
+        int[] touched = chunk.touched;
+        for (int n = 0; n < chunk.touchedCount; n++) {
+            int i = touched[n];
+            MazeTile tile = chunk.tiles[i];
+            chunk.setOpen(i, tile != null && !codec.isSettled(tile));
+            chunk.touchedBits[i >>> 6] &= ~(1L << i);
+        }
+        chunk.touchedCount = 0;
+        return chunk.unsettled;
+    }
+
+    @Override
+    public MazeTile get(int x, int y) {
+        Chunk chunk = chunk(x, y, false);
+        if (chunk == null) return null;
+        int i = index(x, y);
+        MazeTile tile = chunk.tiles[i];
+        if (tile != null) chunk.touch(i);
+        return tile;
+    }
+
+    @Override
+    public MazeTile put(int x, int y, MazeTile tile) {
+        if (tile == null) {
+            return remove(x, y);
+        }
+        Chunk chunk = chunk(x, y, true);
+        int i = index(x, y);
+        MazeTile old = chunk.tiles[i];
+        chunk.tiles[i] = tile;
+        chunk.touch(i);
+        if (old == null) {
+            chunk.count++;
+            size++;
+        }
+        pinned = chunk;
+        return old;
+    }
+
+    @Override
+    public MazeTile remove(int x, int y) {
+        Chunk chunk = chunk(x, y, false);
+        if (chunk == null) return null;
+        int i = index(x, y);
+        MazeTile old = chunk.tiles[i];
+        if (old != null) {
+            chunk.tiles[i] = null;
+            chunk.setOpen(i, false);
+            chunk.count--;
+            size--;
+        }
+        return old;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        resident.clear();
+        Arrays.fill(spilledSlots, 0);
+        spilledEntries = 0;
+        spilledCount = 0;
+        last = null;
+        pinned = null;
+        size = 0;
+        // the slots of the spill file are reused.
+        slots = 0;
+    }
+
+    /**
+     * Get the number of chunks, resident or spilled.
+     *
+     * @return the number of chunks.
+     */
+    public int getChunkCount() {
+        return resident.size() + spilledCount;
+    }
+
+    /**
+     * Get the number of chunks held in memory.
+     *
+     * @return the number of resident chunks.
+     */
+    public int getResidentCount() {
+        return resident.size();
+    }
+
+    /**
+     * Release the spill file. The board must not be used afterwards.
+     *
+     * @throws IOException if the file cannot be deleted.
+     */
+    public void close() throws IOException {
+        clear();
+        segments.clear();
+        if (spill != null) {
+            spill.close();
+            spill = null;
+            Files.deleteIfExists(spillPath);
+        }
+    }
+
+    private void evict(Chunk chunk) {
+        long key = MazeBoard.key(chunk.cx, chunk.cy);
+        if (chunk.slot < 0) {
+            chunk.slot = slots++;
+            putSpilled(key, chunk.slot);
+        }
+        MappedByteBuffer segment = segment(chunk.slot);
+        int offset = (chunk.slot % SLOTS_PER_SEGMENT) * slotBytes;
+        segment.putInt(offset, chunk.count);
+        MazeTile[] tiles = chunk.tiles;
+        for (int i = 0; i < cells; i++) {
+            MazeTile tile = tiles[i];
+            segment.put(offset + 4 + i, tile == null ? 0 : (byte) codec.kind(tile));
+            segment.putInt(offset + 4 + cells + i * 4, tile == null ? 0 : codec.pack(tile));
+        }
+        chunk.tiles = null;
+        resident.remove(key);
+        spilledCount++;
+        if (last == chunk) last = null;
+    }
+
+    private void load(Chunk chunk) {
+        chunk.count = count(chunk.slot);
+        chunk.tiles = new MazeTile[cells];
+        chunk.allocate(cells);
+        if (chunk.count > 0) read(chunk.cx, chunk.cy, chunk.slot, chunk.tiles);
+        for (int i = 0; i < cells; i++) {
+            MazeTile tile = chunk.tiles[i];
+            if (tile != null && !codec.isSettled(tile)) chunk.setOpen(i, true);
+        }
+    }
+
+    private int count(int slot) {
+        return segment(slot).getInt((slot % SLOTS_PER_SEGMENT) * slotBytes);
+    }
+
+    /**
+     * Read the tiles of a spilled chunk.
+     */
+    private void read(int cx, int cy, int slot, MazeTile[] tiles) {
+        MappedByteBuffer segment = segment(slot);
+        int offset = (slot % SLOTS_PER_SEGMENT) * slotBytes;
+        int mask = (1 << chunkBits) - 1;
+        for (int i = 0; i < cells; i++) {
+            int kind = segment.get(offset + 4 + i);
+            if (kind != 0) {
+                int x = (cx << chunkBits) | (i & mask);
+                int y = (cy << chunkBits) | (i >>> chunkBits);
+                tiles[i] = codec.create(kind, segment.getInt(offset + 4 + cells + i * 4), x, y);
+            }
+        }
+    }
+
+    private MappedByteBuffer segment(int slot) {
+        int index = slot / SLOTS_PER_SEGMENT;
+        try {
+            if (spill == null) {
+                spillPath = Files.createTempFile("maze-spill", ".bin");
+                spillPath.toFile().deleteOnExit();
+                spill = FileChannel.open(spillPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            }
+            while (segments.size() <= index) {
+                long size = (long) SLOTS_PER_SEGMENT * slotBytes;
+                segments.add(spill.map(FileChannel.MapMode.READ_WRITE, segments.size() * size, size));
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot spill the board.", ex);
+        }
+        return segments.get(index);
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Get the slot of the chunk in the spill file.
+     *
+     * @return the slot, or -1 if the chunk was never spilled.
+     */
+    private int spilledSlot(long key) {
+        int mask = spilledKeys.length - 1;
+        for (int i = hash(key) & mask; spilledSlots[i] != 0; i = (i + 1) & mask) {
+            if (spilledKeys[i] == key) return spilledSlots[i] - 1;
+        }
+        return -1;
+    }
+
+    /**
+     * Map the chunk to its slot, once for all: a chunk keeps its slot when read back.
+     */
+    private void putSpilled(long key, int slot) {
+        if ((spilledEntries + 1) * 2 > spilledKeys.length) {
+            long[] oldKeys = spilledKeys;
+            int[] oldSlots = spilledSlots;
+            spilledKeys = new long[oldKeys.length * 2];
+            spilledSlots = new int[oldKeys.length * 2];
+            spilledEntries = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldSlots[i] != 0) putSpilled(oldKeys[i], oldSlots[i] - 1);
+            }
+        }
+        int mask = spilledKeys.length - 1;
+        int i = hash(key) & mask;
+        while (spilledSlots[i] != 0) i = (i + 1) & mask;
+        spilledKeys[i] = key;
+        spilledSlots[i] = slot + 1;
+        spilledEntries++;
+    }
+
+    /**
+     * Get the spill file.
+     *
+     * @return the file, or null if nothing was spilled yet.
+     */
+    public File getSpillFile() {
+        return spillPath == null ? null : spillPath.toFile();
+    }
+
+    @Override
+    public void forEach(Consumer<? super MazeTile> action) {
+        for (Chunk chunk : resident.values()) {
+            for (MazeTile tile : chunk.tiles) {
+                if (tile != null) action.accept(tile);
+            }
+        }
+        MazeTile[] copies = null;
+        for (int i = 0; i < spilledKeys.length; i++) {
+            if (!isSpilled(i)) continue;
+            if (copies == null) copies = new MazeTile[cells];
+            Arrays.fill(copies, null);
+            long key = spilledKeys[i];
+            read(MazeBoard.keyX(key), MazeBoard.keyY(key), spilledSlots[i] - 1, copies);
+            for (MazeTile tile : copies) {
+                if (tile != null) action.accept(tile);
+            }
+        }
+    }
+
+    /**
+     * Check whether the entry of the map is a spilled chunk holding tiles, not resident.
+     */
+    private boolean isSpilled(int entry) {
+        return spilledSlots[entry] != 0 && count(spilledSlots[entry] - 1) > 0
+                && !resident.containsKey(spilledKeys[entry]);
+    }
+
+    @Override
+    public Iterator<MazeTile> iterator() {
+        final Iterator<Chunk> chunkIterator = resident.values().iterator();
+        return new Iterator<MazeTile>() {
+
+            private MazeTile[] tiles;
+            private int index;
+            private int entry = -1;
+            private MazeTile next = advance();
+
+            private MazeTile advance() {
+                while (true) {
+                    if (tiles != null) {
+                        while (index < tiles.length) {
+                            MazeTile tile = tiles[index++];
+                            if (tile != null) return tile;
+                        }
+                    }
+                    index = 0;
+                    if (chunkIterator.hasNext()) {
+                        tiles = chunkIterator.next().tiles;
+                        continue;
+                    }
+                    do {
+                        entry++;
+                    } while (entry < spilledKeys.length && !isSpilled(entry));
+                    if (entry >= spilledKeys.length) return null;
+                    long key = spilledKeys[entry];
+                    tiles = new MazeTile[cells];
+                    read(MazeBoard.keyX(key), MazeBoard.keyY(key), spilledSlots[entry] - 1, tiles);
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public MazeTile next() {
+                if (next == null) throw new NoSuchElementException();
+                MazeTile tile = next;
+                next = advance();
+                return tile;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(resident.size());
+        for (Chunk chunk : resident.values()) {
+            // the resident tiles keep their identity, the current tile of the model among them.
+            out.writeInt(chunk.cx);
+            out.writeInt(chunk.cy);
+            out.writeObject(chunk.tiles);
+        }
+        out.writeInt(spilledCount);
+        MazeTile[] copies = new MazeTile[cells];
+        for (int i = 0; i < spilledKeys.length; i++) {
+            if (spilledSlots[i] == 0 || resident.containsKey(spilledKeys[i])) continue;
+            long key = spilledKeys[i];
+            int slot = spilledSlots[i] - 1;
+            int count = count(slot);
+            out.writeLong(key);
+            out.writeInt(count);
+            Arrays.fill(copies, null);
+            if (count > 0) read(MazeBoard.keyX(key), MazeBoard.keyY(key), slot, copies);
+            for (int j = 0; j < cells; j++) {
+                out.writeByte(copies[j] == null ? 0 : codec.kind(copies[j]));
+                out.writeInt(copies[j] == null ? 0 : codec.pack(copies[j]));
+            }
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        init();
+        int residentCount = in.readInt();
+        for (int n = 0; n < residentCount; n++) {
+            Chunk chunk = new Chunk(in.readInt(), in.readInt());
+            chunk.tiles = (MazeTile[]) in.readObject();
+            chunk.allocate(cells);
+            for (int i = 0; i < cells; i++) {
+                MazeTile tile = chunk.tiles[i];
+                if (tile == null) continue;
+                chunk.count++;
+                if (!codec.isSettled(tile)) chunk.setOpen(i, true);
+            }
+            resident.put(MazeBoard.key(chunk.cx, chunk.cy), chunk);
+        }
+        int spilled = in.readInt();
+        for (int n = 0; n < spilled; n++) {
+            long key = in.readLong();
+            int slot = slots++;
+            putSpilled(key, slot);
+            spilledCount++;
+            MappedByteBuffer segment = segment(slot);
+            int offset = (slot % SLOTS_PER_SEGMENT) * slotBytes;
+            segment.putInt(offset, in.readInt());
+            for (int i = 0; i < cells; i++) {
+                segment.put(offset + 4 + i, in.readByte());
+                segment.putInt(offset + 4 + cells + i * 4, in.readInt());
+            }
+        }
+    }
+
+    /**
+     * The resident chunk, holding its tiles and the cells of its unsettled tiles.
+     */
+    private static final class Chunk {
+
+        final int cx;
+        final int cy;
+        MazeTile[] tiles;
+        int count;
+
+        /**
+         * The slot in the spill file, or -1 if never spilled.
+         */
+        int slot = -1;
+
+        /**
+         * The cells of the unsettled tiles, as of the last check, and their number.
+         */
+        long[] openBits;
+        int unsettled;
+
+        /**
+         * The cells of the tiles handed out since the last check.
+         */
+        int[] touched;
+        long[] touchedBits;
+        int touchedCount;
+
+        Chunk(int cx, int cy) {
+            this.cx = cx;
+            this.cy = cy;
+        }
+
+        void allocate(int cells) {
+            openBits = new long[(cells + 63) >>> 6];
+            touchedBits = new long[(cells + 63) >>> 6];
+            touched = new int[16];
+        }
+
+        void touch(int i) {
+            long bit = 1L << i;
+            if ((touchedBits[i >>> 6] & bit) != 0) return;
+            touchedBits[i >>> 6] |= bit;
+            if (touchedCount == touched.length) touched = Arrays.copyOf(touched, touchedCount * 2);
+            touched[touchedCount++] = i;
+        }
+
+        void setOpen(int i, boolean open) {
+            long bit = 1L << i;
+            boolean was = (openBits[i >>> 6] & bit) != 0;
+            if (open == was) return;
+            if (open) {
+                openBits[i >>> 6] |= bit;
+                unsettled++;
+            } else {
+                openBits[i >>> 6] &= ~bit;
+                unsettled--;
+            }
+        }
+    }
+}
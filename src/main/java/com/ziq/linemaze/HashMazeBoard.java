@@ -0,0 +1,176 @@
+package com.ziq.linemaze;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * The sparse board backed by an open-addressing hash table.
+ * <p>The positions are packed into long keys by {@link MazeBoard#key(int, int)} and probed linearly, so neither
+ * lookups nor insertions allocate. It suits boards whose bounds are unknown or too large to hold densely.</p>
+ *
+ * @author ziq
+ */
+public class HashMazeBoard implements MazeBoard {
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private long[] keys;
+    private MazeTile[] values;
+    private int size = 0;
+
+    /**
+     * Construct the board with default capacity.
+     */
+    public HashMazeBoard() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Construct the board with the expected number of tiles.
+     *
+     * @param expected the expected number of tiles.
+     */
+    public HashMazeBoard(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(expected, 2) * 2 - 1) << 1;
+        keys = new long[capacity];
+        values = new MazeTile[capacity];
+    }
+
+    private static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    private int slot(long key) {
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (values[i] != null && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    @Override
+    public MazeTile get(int x, int y) {
+        return values[slot(MazeBoard.key(x, y))];
+    }
+
+    @Override
+    public MazeTile put(int x, int y, MazeTile tile) {
+        if (tile == null) {
+            return remove(x, y);
+        }
+        long key = MazeBoard.key(x, y);
+        int i = slot(key);
+        MazeTile old = values[i];
+        if (old == null) {
+            keys[i] = key;
+            size++;
+        }
+        values[i] = tile;
+        if (size * 4 > keys.length * 3) {
+            resize(keys.length << 1);
+        }
+        return old;
+    }
+
+    @Override
+    public MazeTile remove(int x, int y) {
+        int i = slot(MazeBoard.key(x, y));
+        MazeTile old = values[i];
+        if (old == null) return null;
+
+        // backward shift deletion keeps the probe sequences intact without tombstones.
+        int mask = keys.length - 1;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (values[j] == null) break;
+            int home = hash(keys[j]) & mask;
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                keys[i] = keys[j];
+                values[i] = values[j];
+                i = j;
+            }
+        }
+        values[i] = null;
+        size--;
+        return old;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        MazeTile[] oldValues = values;
+        keys = new long[capacity];
+        values = new MazeTile[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                int j = slot(oldKeys[i]);
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(values, null);
+            size = 0;
+        }
+    }
+
+    /**
+     * Perform the action for each tile, without allocating an iterator.
+     *
+     * @param action the action.
+     */
+    @Override
+    public void forEach(Consumer<? super MazeTile> action) {
+        for (MazeTile tile : values) {
+            if (tile != null) action.accept(tile);
+        }
+    }
+
+    @Override
+    public Iterator<MazeTile> iterator() {
+        return new Iterator<MazeTile>() {
+
+            private int current = advance(0);
+
+            private int advance(int i) {
+                while (i < values.length && values[i] == null) i++;
+                return i;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return current < values.length;
+            }
+
+            @Override
+            public MazeTile next() {
+                if (current >= values.length) throw new NoSuchElementException();
+                try {
+                    return values[current];
+                } finally {
+                    current = advance(current + 1);
+                }
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
@@ -0,0 +1,116 @@
+package com.ziq.linemaze;
+
+import java.util.List;
+
+/**
+ * The maze of line tiles on any {@link Topology}, played by a {@link LineMazeStrategy}.
+ * <p>The traversal state of the model is the exit the path left the current tile by.</p>
+ *
+ * @author ziq
+ */
+public abstract class LineMazeModel extends MazeModel {
+
+    /**
+     * The largest area, in cells, held by a dense board.
+     */
+    public static final int DENSE_LIMIT = LineMazeStrategy.DENSE_LIMIT;
+
+    private final LineMazeStrategy strategy;
+
+    /**
+     * Construct the model with a random seed.
+     *
+     * @param strategy the strategy, possibly shared with other models.
+     */
+    protected LineMazeModel(LineMazeStrategy strategy) {
+        super(strategy);
+        this.strategy = strategy;
+    }
+
+    /**
+     * Construct the model.
+     *
+     * @param strategy the strategy, possibly shared with other models.
+     * @param seed     the seed of the model.
+     */
+    protected LineMazeModel(LineMazeStrategy strategy, long seed) {
+        super(strategy, seed);
+        this.strategy = strategy;
+    }
+
+    @Override
+    public LineMazeStrategy getStrategy() {
+        return strategy;
+    }
+
+    public final Topology getTopology() {
+        return strategy.getTopology();
+    }
+
+    /**
+     * Check whether the position is in the play area.
+     *
+     * @param x the x coordinate.
+     * @param y the y coordinate.
+     * @return true if the position is inside the walls.
+     */
+    public boolean contains(int x, int y) {
+        return strategy.contains(x, y);
+    }
+
+    public int getStartX() {
+        return strategy.getStartX();
+    }
+
+    public int getStartY() {
+        return strategy.getStartY();
+    }
+
+    @Override
+    public List<Integer> nextPosition(MazeTile tile) {
+        return super.nextPosition(tile);
+    }
+
+    @Override
+    public MazeTile createTile(List<Integer> position) {
+        return super.createTile(position);
+    }
+
+    /**
+     * Get whether the open corridors are indexed.
+     *
+     * @return true if indexed.
+     */
+    public boolean isSegmentIndexing() {
+        return isSegmentIndexed();
+    }
+
+    /**
+     * Set whether to index the open corridors, the chains of unaccessed paths through the placed tiles, so that a
+     * move entering a corridor goes straight to its far end.
+     * <p>A move then costs the tiles it accesses rather than the board lookups along its path, and every move pays
+     * the upkeep of the corridors around the tile it leaves. The index is built from the board when enabled and by
+     * a new game, rebuilt on the next move after an undo, a redo or a restored game, and disabled while the hop
+     * events are fired. The tiles put on the board directly are only indexed by enabling the index again. It is not
+     * serialized with the model.</p>
+     *
+     * @param indexing true to index the corridors.
+     */
+    public void setSegmentIndexing(boolean indexing) {
+        if (indexing != isSegmentIndexing()) setSegmentIndex(indexing ? getTopology() : null);
+    }
+
+    /**
+     * Get the exit the path left the current tile by.
+     *
+     * @return the exit, or null once the path reached a dead end or a wall.
+     */
+    public Integer getExit() {
+        int exit = getTraversalState();
+        return exit == MazeTile.NO_EXIT ? null : exit;
+    }
+
+    public void setExit(Integer exit) {
+        setTraversalState(exit == null ? MazeTile.NO_EXIT : exit);
+    }
+}
@@ -0,0 +1,127 @@
+package com.ziq.linemaze;
+
+import java.io.Serializable;
+
+/**
+ * The strategy of the line tiles on any {@link Topology}.
+ * <p>The traversal is driven by the tables of the topology alone: the exit of the current tile, kept by the model as
+ * its traversal state, leads to the neighbour at the offset of the exit, which is entered by the opposite exit. The
+ * subclasses only define the play area and the start, so the rectangle and the hexagonal boards run the same inner
+ * loop on the same {@link LineTile} code. The strategy is immutable.</p>
+ *
+ * @author ziq
+ */
+public abstract class LineMazeStrategy implements MazeStrategy, Serializable {
+
+    /**
+     * The largest area, in cells, held by a dense board.
+     */
+    public static final int DENSE_LIMIT = 1 << 22;
+
+    private final Topology topology;
+
+    protected LineMazeStrategy(Topology topology) {
+        this.topology = topology;
+    }
+
+    /**
+     * Create the board of the bounding box of a play area: dense up to {@link #DENSE_LIMIT} cells, sparse beyond.
+     *
+     * @param minX   the smallest x coordinate.
+     * @param minY   the smallest y coordinate.
+     * @param width  the width of the box.
+     * @param height the height of the box.
+     * @return the {@link MazeBoard}.
+     */
+    protected static MazeBoard createBoard(int minX, int minY, int width, int height) {
+        if ((long) width * height <= DENSE_LIMIT) {
+            return new ArrayMazeBoard(minX, minY, width, height);
+        }
+        return new HashMazeBoard();
+    }
+
+    public final Topology getTopology() {
+        return topology;
+    }
+
+    /**
+     * Check whether the position is in the play area.
+     *
+     * @param x the x coordinate.
+     * @param y the y coordinate.
+     * @return true if the position is inside the walls.
+     */
+    public abstract boolean contains(int x, int y);
+
+    public abstract int getStartX();
+
+    public abstract int getStartY();
+
+    /**
+     * Get the exit of the start tile leading to the first tile.
+     *
+     * @return the exit in board coordinates.
+     */
+    protected abstract int getStartExit();
+
+    /**
+     * Create the start tile.
+     *
+     * @return the {@link StartTile}.
+     */
+    protected StartTile createStartTile() {
+        return new StartTile();
+    }
+
+    /**
+     * Create a line tile of the topology, not yet positioned.
+     *
+     * @param type the type id drawn.
+     * @return the {@link LineTile}.
+     */
+    protected abstract LineTile createLineTile(int type);
+
+    @Override
+    public void initTiles(MazeModel model) {
+        int startX = getStartX();
+        int startY = getStartY();
+        int exit = getStartExit();
+        model.setTraversalState(exit);
+        model.getBoard().clear();
+
+        StartTile start = createStartTile();
+        start.setPosition(startX, startY);
+        model.addTile(start);
+
+        model.addTile(createTile(model, startX + topology.dx(exit), startY + topology.dy(exit)));
+    }
+
+    @Override
+    public final long nextKey(MazeModel model, MazeTile tile) {
+        int exit = model.getTraversalState();
+        if (exit == MazeTile.NO_EXIT) return MazeModel.NO_POSITION;
+        Topology topology = this.topology;
+        int entrance = topology.opposite(exit);
+        // the final methods of the line tiles are bound statically.
+        exit = tile instanceof LineTile ? ((LineTile) tile).accessPath(entrance) : tile.accessPath(entrance);
+        model.setTraversalState(exit);
+        if (exit == MazeTile.NO_EXIT) return MazeModel.NO_POSITION;
+        int x = tile.getX() + topology.dx(exit);
+        int y = tile.getY() + topology.dy(exit);
+        // the walls, the traversal state is kept so that the model counts them.
+        if (!contains(x, y)) return MazeModel.NO_POSITION;
+        return MazeBoard.key(x, y);
+    }
+
+    @Override
+    public int getTileTypeCount() {
+        return topology.getTypeCount();
+    }
+
+    @Override
+    public final MazeTile createTile(MazeModel model, int x, int y) {
+        LineTile tile = createLineTile(model.nextTileType(topology.getTypeCount()));
+        tile.setPosition(x, y);
+        return tile;
+    }
+}
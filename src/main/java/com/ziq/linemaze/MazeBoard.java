@@ -0,0 +1,84 @@
+package com.ziq.linemaze;
+
+import java.io.Serializable;
+
+/**
+ * The storage of the tiles placed on the maze.
+ * <p>The board is addressed by primitive (x, y) coordinates so that lookups on the hot path of
+ * {@link MazeModel#next()} neither box the coordinates nor allocate a key object.</p>
+ *
+ * @author ziq
+ */
+public interface MazeBoard extends Iterable<MazeTile>, Serializable {
+
+    /**
+     * Get the tile at position (x, y).
+     *
+     * @param x the x coordinate.
+     * @param y the y coordinate.
+     * @return the {@link MazeTile} or null if the cell is empty.
+     */
+    public MazeTile get(int x, int y);
+
+    /**
+     * Put the tile at position (x, y).
+     *
+     * @param x    the x coordinate.
+     * @param y    the y coordinate.
+     * @param tile the tile.
+     * @return the tile previously placed at the position, or null.
+     */
+    public MazeTile put(int x, int y, MazeTile tile);
+
+    /**
+     * Remove the tile at position (x, y).
+     *
+     * @param x the x coordinate.
+     * @param y the y coordinate.
+     * @return the removed tile, or null if the cell was empty.
+     */
+    public MazeTile remove(int x, int y);
+
+    /**
+     * Get the number of tiles on the board.
+     *
+     * @return the number of tiles.
+     */
+    public int size();
+
+    /**
+     * Remove all the tiles.
+     */
+    public void clear();
+
+    /**
+     * Pack the position (x, y) into a single long key.
+     *
+     * @param x the x coordinate.
+     * @param y the y coordinate.
+     * @return the packed key.
+     */
+    public static long key(int x, int y) {
+        return ((long) x << 32) | (y & 0xffffffffL);
+    }
+
+    /**
+     * Get the x coordinate of the packed key.
+     *
+     * @param key the packed key.
+     * @return the x coordinate.
+     */
+    public static int keyX(long key) {
+        return (int) (key >> 32);
+    }
+
+    /**
+     * Get the y coordinate of the packed key.
+     *
+     * @param key the packed key.
+     * @return the y coordinate.
+     */
+    public static int keyY(long key) {
+        return (int) key;
+    }
+}
@@ -0,0 +1,99 @@
+package com.ziq.linemaze;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The {@link Map} view of a {@link MazeBoard}, keyed by the position list (x, y).
+ * <p>It keeps the {@link MazeModel#getTiles()} contract for the existing users. Every lookup through the view
+ * unboxes the key, so the hot path should address the board directly.</p>
+ *
+ * @author ziq
+ */
+class MazeBoardMap extends AbstractMap<List, MazeTile> {
+
+    private final MazeBoard board;
+
+    MazeBoardMap(MazeBoard board) {
+        this.board = board;
+    }
+
+    @Override
+    public MazeTile get(Object key) {
+        if (!(key instanceof List)) return null;
+        List position = (List) key;
+        if (position.size() != 2
+                || !(position.get(0) instanceof Integer) || !(position.get(1) instanceof Integer)) {
+            return null;
+        }
+        return board.get((Integer) position.get(0), (Integer) position.get(1));
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public MazeTile put(List key, MazeTile value) {
+        return board.put((Integer) key.get(0), (Integer) key.get(1), value);
+    }
+
+    @Override
+    public MazeTile remove(Object key) {
+        MazeTile tile = get(key);
+        if (tile != null) {
+            List position = (List) key;
+            board.remove((Integer) position.get(0), (Integer) position.get(1));
+        }
+        return tile;
+    }
+
+    @Override
+    public int size() {
+        return board.size();
+    }
+
+    @Override
+    public void clear() {
+        board.clear();
+    }
+
+    @Override
+    public Set<Entry<List, MazeTile>> entrySet() {
+        return new AbstractSet<Entry<List, MazeTile>>() {
+
+            @Override
+            public Iterator<Entry<List, MazeTile>> iterator() {
+                final Iterator<MazeTile> tiles = board.iterator();
+                return new Iterator<Entry<List, MazeTile>>() {
+
+                    @Override
+                    public boolean hasNext() {
+                        return tiles.hasNext();
+                    }
+
+                    @Override
+                    public Entry<List, MazeTile> next() {
+                        MazeTile tile = tiles.next();
+                        return new SimpleImmutableEntry<List, MazeTile>(tile.getPosition(), tile);
+                    }
+
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return board.size();
+            }
+        };
+    }
+}
@@ -0,0 +1,94 @@
+package com.ziq.linemaze;
+
+/**
+ * The typed listener of the {@link MazeModel}.
+ * <p>The listener receives the primitive values directly, so the model neither boxes them nor allocates an event
+ * object. All the methods default to no-op and the implementation overrides the ones it cares about.</p>
+ *
+ * @author ziq
+ */
+public interface MazeListener {
+
+    /**
+     * Called on every state assignment, even when the state is unchanged.
+     *
+     * @param oldState the previous state.
+     * @param newState the new state.
+     */
+    public default void onStateChanged(int oldState, int newState) {
+    }
+
+    /**
+     * Called when the current tile changes.
+     *
+     * @param oldTile the previous current tile.
+     * @param newTile the new current tile.
+     */
+    public default void onTileChanged(MazeTile oldTile, MazeTile newTile) {
+    }
+
+    /**
+     * Called when the number of path nodes changes.
+     *
+     * @param oldNodes the previous number of path nodes.
+     * @param newNodes the new number of path nodes.
+     */
+    public default void onPathNodesChanged(int oldNodes, int newNodes) {
+    }
+
+    /**
+     * Called when a new game is started by {@link MazeModel#initModel(long)}.
+     *
+     * @param gameSeed the seed of the game.
+     */
+    public default void onInit(long gameSeed) {
+    }
+
+    /**
+     * Called when the current tile is rotated.
+     *
+     * @param tile the rotated tile.
+     */
+    public default void onRotate(MazeTile tile) {
+    }
+
+    /**
+     * Called when a move is taken back by {@link MazeModel#undo()}.
+     */
+    public default void onUndo() {
+    }
+
+    /**
+     * Called when a move is played again by {@link MazeModel#redo()}.
+     */
+    public default void onRedo() {
+    }
+
+    /**
+     * Called once per {@link MazeModel#next()} with the summary of the move.
+     *
+     * @param traversed the number of already placed tiles the path went through.
+     * @param nodes     the number of path nodes collected by the move.
+     * @param state     the state of model after the move.
+     */
+    public default void onMove(int traversed, int nodes, int state) {
+    }
+
+    /**
+     * Called when the score changes, by a move, a new game, an undo or a redo.
+     *
+     * @param oldScore the previous score.
+     * @param newScore the new score.
+     */
+    public default void onScoreChanged(long oldScore, long newScore) {
+    }
+
+    /**
+     * Called once per {@link MazeModel#apply(byte[], int, int, MoveBatch)}, after the consolidated changes, in place
+     * of the events of the commands.
+     *
+     * @param batch the result of the batch, reused by the caller.
+     */
+    public default void onBatch(MoveBatch batch) {
+    }
+}
@@ -0,0 +1,63 @@
+package com.ziq.linemaze;
+
+/**
+ * The sink of the metrics of the {@link MazeModel} hot paths.
+ * <p>The model only measures while a sink is set by {@link MazeModel#setMetrics(MazeMetrics)}, so the metrics cost a
+ * null check when disabled. The same sink may be shared by many models played on different threads, so the
+ * implementation must be thread-safe. All the methods default to no-op and the implementation overrides the ones it
+ * cares about.</p>
+ *
+ * @author ziq
+ */
+public interface MazeMetrics {
+
+    /**
+     * The metrics recording nothing.
+     */
+    public static final MazeMetrics NONE = new MazeMetrics() {
+    };
+
+    /**
+     * Called once per {@link MazeModel#next()}, with the duration of the whole move including the listeners.
+     *
+     * @param nanos the duration of the move in nanos.
+     * @param depth the number of path nodes collected by the move, the length of the chain walked.
+     * @param tiles the number of tiles on the board after the move.
+     * @param state the state of model after the move.
+     */
+    public default void onNext(long nanos, int depth, int tiles, int state) {
+    }
+
+    /**
+     * Called once per {@link MazeModel#rotate()}, with the duration including the listeners.
+     *
+     * @param nanos the duration of the rotation in nanos.
+     */
+    public default void onRotate(long nanos) {
+    }
+
+    /**
+     * Called when a move places a new tile.
+     *
+     * @param nanos the duration of the creation of the tile in nanos.
+     */
+    public default void onCreateTile(long nanos) {
+    }
+
+    /**
+     * Called once per notification of a listener, including the state callbacks and the property change listeners.
+     *
+     * @param listener the notified listener.
+     * @param nanos    the duration of the notification in nanos.
+     */
+    public default void onDispatch(Object listener, long nanos) {
+    }
+
+    /**
+     * Called when a move ends the game.
+     *
+     * @param pathNodes the number of path nodes of the game.
+     */
+    public default void onGameEnded(int pathNodes) {
+    }
+}
@@ -2,12 +2,13 @@ package com.ziq.linemaze;
 
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * The game logic framework.
@@ -16,7 +17,9 @@ import java.util.Set;
  * <li>{@link #next()}: fix the current tile and move the cursor forward.</li>
  * <li>{@link #rotate()}: rotateTile the current tile.</li>
  * </ul>
- * <p>The main logic part is left for subclass to implement. </p>
+ * <p>The main logic part is delegated to the {@link MazeStrategy}, which is stateless and may be shared by any number
+ * of models: the state of the game, including the traversal state of the strategy, lives in the model. The
+ * subclasses may still override the hooks instead of providing a strategy.</p>
  *
  * @author yfwz100
  */
@@ -38,6 +41,23 @@ public abstract class MazeModel implements Serializable {
         public void onState(int state);
     }
 
+    /**
+     * The move callback of the model, notified once per {@link #next()} with the summary of the move.
+     *
+     * @author ziq
+     */
+    public static interface MoveCallback {
+
+        /**
+         * The move summary callback.
+         *
+         * @param traversed the number of already placed tiles the path went through.
+         * @param nodes     the number of path nodes collected by the move.
+         * @param state     the state of model after the move.
+         */
+        public void onMove(int traversed, int nodes, int state);
+    }
+
     /**
      * The state of rotating current tile.
      */
@@ -58,6 +78,17 @@ public abstract class MazeModel implements Serializable {
      */
     public static final int STATE_END = 0;
 
+    /**
+     * The packed position of a dead end, returned by {@link #nextKey(MazeTile)}. It stands for the position
+     * (Integer.MIN_VALUE, 0), which no model uses.
+     */
+    public static final long NO_POSITION = Long.MIN_VALUE;
+
+    /**
+     * The default number of the upcoming tile types drawn ahead.
+     */
+    public static final int DEFAULT_TILE_WINDOW = 8;
+
     /**
      * The property 'state'.
      */
@@ -74,15 +105,56 @@ public abstract class MazeModel implements Serializable {
     public static final String PROPERTY_PATH_NODES = "pathNodes";
 
     /**
-     * The property change notifier.
+     * The property 'score'.
+     */
+    public static final String PROPERTY_SCORE = "score";
+
+    private static final MazeListener[] NO_LISTENERS = new MazeListener[0];
+
+    /**
+     * The listeners of the model, replaced on every change so that the dispatch iterates a stable array.
+     */
+    private transient MazeListener[] listeners = NO_LISTENERS;
+
+    /**
+     * The listeners notified, either {@link #listeners} or none while the events are suppressed.
+     */
+    private transient MazeListener[] active = NO_LISTENERS;
+
+    /**
+     * Whether the events are suppressed.
+     */
+    private transient boolean eventsSuppressed = false;
+
+    /**
+     * The property change notifier, registered as listener while property change listeners are attached.
+     */
+    private transient PropertyChangeBridge propertyChangeBridge;
+
+    /**
+     * The sink of the metrics, or null if disabled.
+     */
+    private transient MazeMetrics metrics;
+
+    /**
+     * The tiles changed since the last drain, or null if the tracking is disabled.
      */
-    protected PropertyChangeSupport propertyChangeSupport = new PropertyChangeSupport(this);
+    private transient ChangeBatch changes;
 
     /**
-     * The inner map representation of tiles.
-     * The key of the tiles is the position, usually presented as form (x,y).
+     * The index of the open corridors, or null if disabled.
      */
-    private final Map<List, MazeTile> tiles = new HashMap<List, MazeTile>();
+    private transient SegmentIndex segments;
+
+    /**
+     * The board holding the tiles, addressed by the position (x,y).
+     */
+    private final MazeBoard board;
+
+    /**
+     * The map view of the board, created on demand.
+     */
+    private transient Map<List, MazeTile> tiles;
 
     /**
      * The state of the model.
@@ -100,14 +172,100 @@ public abstract class MazeModel implements Serializable {
     private int pathNodes = 0;
 
     /**
-     * The stateCallbacks of the model.
+     * The score of the game, updated by the moves.
      */
-    private Set<StateCallback> stateCallbacks = new HashSet<StateCallback>();
+    private final MazeScore score = new MazeScore();
 
     /**
-     * Create the model with the strategy.
+     * Whether to fire the property changes on every tile the path goes through.
+     */
+    private boolean hopEvents = false;
+
+    /**
+     * The undo/redo history of the moves, or null if disabled.
+     */
+    private transient MoveHistory history;
+
+    /**
+     * The source of the game seeds, started from the seed of the model.
+     */
+    private final TileSource seeds;
+
+    /**
+     * The source of the tiles of the current game.
+     */
+    private final TileSource tileSource;
+
+    /**
+     * The number of the upcoming tile types drawn ahead, 0 to draw them on demand.
+     */
+    private int tileWindow = DEFAULT_TILE_WINDOW;
+
+    /**
+     * The upcoming tile types, created on demand.
+     */
+    private transient TileQueue tileQueue;
+
+    /**
+     * The rules of the game, or null if the subclass overrides the hooks.
+     */
+    private final MazeStrategy strategy;
+
+    /**
+     * The state the strategy keeps to follow the path.
+     */
+    private int traversalState = -1;
+
+    /**
+     * Create the model with a sparse board and a random seed.
      */
     public MazeModel() {
+        this(new HashMazeBoard());
+    }
+
+    /**
+     * Create the model with the given board and a random seed.
+     *
+     * @param board the board to hold the tiles.
+     */
+    public MazeModel(MazeBoard board) {
+        this(board, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Create the model with the given board and seed.
+     *
+     * @param board the board to hold the tiles.
+     * @param seed  the seed of the model, from which the seeds of the successive games are drawn.
+     */
+    public MazeModel(MazeBoard board, long seed) {
+        this(null, board, seed);
+    }
+
+    /**
+     * Create the model playing the strategy, on a board created by the strategy, with a random seed.
+     *
+     * @param strategy the strategy, possibly shared with other models.
+     */
+    public MazeModel(MazeStrategy strategy) {
+        this(strategy, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Create the model playing the strategy, on a board created by the strategy.
+     *
+     * @param strategy the strategy, possibly shared with other models.
+     * @param seed     the seed of the model, from which the seeds of the successive games are drawn.
+     */
+    public MazeModel(MazeStrategy strategy, long seed) {
+        this(strategy, strategy.createBoard(), seed);
+    }
+
+    private MazeModel(MazeStrategy strategy, MazeBoard board, long seed) {
+        this.strategy = strategy;
+        this.board = board;
+        this.seeds = new TileSource(seed);
+        this.tileSource = new TileSource(seed);
     }
 
     /**
@@ -116,8 +274,19 @@ public abstract class MazeModel implements Serializable {
      * @param position the position vector.
      * @return the {@link MazeTile}
      */
-    public MazeTile getTile(List position) {
-        return tiles.get(position);
+    public MazeTile getTile(List<Integer> position) {
+        return board.get(position.get(0), position.get(1));
+    }
+
+    /**
+     * Get the tile at position (x, y).
+     *
+     * @param x the x coordinate.
+     * @param y the y coordinate.
+     * @return the {@link MazeTile}
+     */
+    public MazeTile getTile(int x, int y) {
+        return board.get(x, y);
     }
 
     /**
@@ -126,50 +295,482 @@ public abstract class MazeModel implements Serializable {
      * @param tile the tile.
      */
     public void addTile(MazeTile tile) {
-        tiles.put(tile.getPosition(), tile);
+        board.put(tile.getX(), tile.getY(), tile);
+        if (changes != null) changes.add(ChangeBatch.PLACED, tile.getX(), tile.getY(), 0, tile.getPackedState());
+        if (segments != null) segments.invalidate();
         setCurrentTile(tile);
     }
 
+    /**
+     * Get the seed of the model.
+     *
+     * @return the seed the game seeds are drawn from.
+     */
+    public long getSeed() {
+        return seeds.getSeed();
+    }
+
+    /**
+     * Get the seed of the current game.
+     *
+     * @return the seed given to {@link #initModel(long)}.
+     */
+    public long getGameSeed() {
+        return tileSource.getSeed();
+    }
+
+    /**
+     * Get the source the tiles of the current game are drawn from.
+     *
+     * @return the {@link TileSource}.
+     */
+    protected TileSource getTileSource() {
+        return tileSource;
+    }
+
+    /**
+     * Draw the next tile type from the source of the current game.
+     * <p>The type is taken from the window of the types drawn ahead, if enabled, which yields the same sequence as
+     * drawing them on demand.</p>
+     *
+     * @param count the number of tile types.
+     * @return the type id in [0, count).
+     */
+    public int nextTileType(int count) {
+        TileQueue queue = tileQueue();
+        return queue == null ? tileSource.nextInt(count) : queue.next(tileSource, count);
+    }
+
+    private TileQueue tileQueue() {
+        if (tileQueue == null && tileWindow > 0) {
+            tileQueue = new TileQueue(tileWindow);
+        }
+        return tileQueue;
+    }
+
+    /**
+     * Draw the upcoming tile types ahead, after a move or a new game, so the next move only takes one.
+     * <p>The refill is synchronous, part of the move: in the steady state it draws the one type the move took, which
+     * costs about as much as the direct draw it replaces.</p>
+     */
+    private void fillTileQueue() {
+        TileQueue queue = tileQueue();
+        if (queue == null) return;
+        int count = queue.getCount();
+        if (count == 0 && strategy != null) count = strategy.getTileTypeCount();
+        if (count > 0) queue.fill(tileSource, count);
+    }
+
+    /**
+     * Get the number of the upcoming tile types drawn ahead, and previewed by {@link #getUpcomingTileType(int)}.
+     *
+     * @return the size of the window, 0 if the types are drawn on demand.
+     */
+    public int getTileWindow() {
+        return tileWindow;
+    }
+
+    /**
+     * Set the number of the upcoming tile types drawn ahead. The games are the same whatever the window.
+     *
+     * @param tileWindow the size of the window, 0 to draw the types on demand.
+     */
+    public void setTileWindow(int tileWindow) {
+        if (tileWindow < 0) {
+            throw new IllegalArgumentException("Illegal tile window: " + tileWindow);
+        }
+        this.tileWindow = tileWindow;
+        this.tileQueue = null;
+    }
+
+    /**
+     * Preview the type of an upcoming tile, without drawing it.
+     *
+     * @param index the index of the upcoming tile, 0 for the tile placed by the next move, below the window.
+     * @return the type id the tile will be drawn with, as long as the game goes on without undo.
+     * @throws IndexOutOfBoundsException if the index is outside the window.
+     * @throws IllegalStateException     if the number of tile types is not known yet.
+     */
+    public int getUpcomingTileType(int index) {
+        if (index < 0 || index >= tileWindow) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", window: " + tileWindow);
+        }
+        TileQueue queue = tileQueue();
+        int count = queue.getCount();
+        if (count == 0 && strategy != null) count = strategy.getTileTypeCount();
+        if (count == 0) {
+            throw new IllegalStateException("The number of tile types is unknown before the first draw.");
+        }
+        return queue.peek(tileSource, count, index);
+    }
+
+    /**
+     * Get the strategy of the model.
+     *
+     * @return the {@link MazeStrategy}, or null if the subclass overrides the hooks.
+     */
+    public MazeStrategy getStrategy() {
+        return strategy;
+    }
+
+    private MazeStrategy strategy() {
+        if (strategy == null) {
+            throw new IllegalStateException("The model has no strategy and does not override the hook.");
+        }
+        return strategy;
+    }
+
+    /**
+     * Get the source the game seeds are drawn from by {@link #initModel()}.
+     *
+     * @return the {@link TileSource}.
+     */
+    protected TileSource getSeedSource() {
+        return seeds;
+    }
+
+    /**
+     * Restore the fields of the game without notifying the listeners.
+     * <p>It's used to rebuild a model from a snapshot, after the tiles have been put on the board.</p>
+     *
+     * @param state       the state of model.
+     * @param currentTile the current tile.
+     * @param pathNodes   the number of path nodes.
+     */
+    protected final void restoreGame(int state, MazeTile currentTile, int pathNodes) {
+        this.state = state;
+        this.currentTile = currentTile;
+        this.pathNodes = pathNodes;
+        if (changes != null) changes.reset();
+        if (segments != null) segments.invalidate();
+    }
+
+    /**
+     * Restore the score of the game without notifying the listeners, see {@link #restoreGame(int, MazeTile, int)}.
+     *
+     * @param score        the score of the game.
+     * @param moveScore    the score of the last move.
+     * @param longestChain the longest chain of the game.
+     * @param tilesClosed  the number of closed tiles.
+     */
+    protected final void restoreScore(long score, long moveScore, int longestChain, int tilesClosed) {
+        this.score.set(score, moveScore, longestChain, tilesClosed);
+    }
+
+    /**
+     * Get the board of the maze.
+     *
+     * @return the {@link MazeBoard}.
+     */
+    public final MazeBoard getBoard() {
+        return board;
+    }
+
     /**
      * The next step method.
+     * <p>The path is followed through the already placed tiles in one pass, until it reaches an empty position,
+     * where a new tile is placed, or a dead end, which ends the game. The property changes are fired once with the
+     * final values and the {@link MoveCallback}s are notified with the summary of the move. The per tile events of
+     * the former implementation are fired when {@link #setHopEvents(boolean)} is enabled.</p>
+     * <p>The {@link MazeScore} is updated from the segments and the closed tiles counted along the walk.</p>
+     * <p>When the corridors are indexed, a corridor entered is walked from its tiles in order and left at its far
+     * end, instead of looking up the board hop by hop.</p>
      */
     public void next() {
         // if the game state is not RUNNING, ignore.
         if (state <= STATE_END) return;
 
+        MazeMetrics metrics = this.metrics;
+        ChangeBatch changes = this.changes;
+        long started = metrics == null ? 0 : System.nanoTime();
         int originState = state;
-        setState(STATE_NEXT);
-
-        // notify the current path node changes.
-        setPathNodes(pathNodes + 1);
+        int nodes = pathNodes;
+        int traversed = 0;
+        int closed = 0;
+        boolean end = false;
+        MazeTile tile = getCurrentTile();
+        MoveHistory history = this.history;
+        SegmentIndex segments = this.segments;
+        if (segments != null) {
+            if (hopEvents) {
+                // every hop is notified, the corridors are walked as usual.
+                segments.invalidate();
+                segments = null;
+            } else if (!segments.isValid()) {
+                segments.rebuild(board, tile);
+            }
+        }
+        MazeTile left = tile;
 
-        List<Integer> pos = nextPosition(getCurrentTile());
-        if (pos != null) {
-            MazeTile tile = getTile(pos);
+        if (history != null) {
+            history.begin(state, tile, pathNodes, getTraversalState(), tileSource.getState(), score);
+        }
+        if (hopEvents) setState(STATE_NEXT);
+        while (true) {
+            nodes++;
+            if (hopEvents) setPathNodes(nodes);
 
-            if (tile != null) {
-                // notify the current tile.
+            if (history != null) history.touch(tile);
+            int packed = changes == null ? 0 : tile.getPackedState();
+            long pos = nextKey(tile);
+            if (changes != null && tile.getPackedState() != packed) {
+                changes.add(ChangeBatch.ACCESSED, tile.getX(), tile.getY(), packed, tile.getPackedState());
+            }
+            // the path just accessed may be the last open one of the tile.
+            if (tile.isClosed()) closed++;
+            if (pos == NO_POSITION) {
+                if (traversalState != MazeTile.NO_EXIT) {
+                    // the path left the area, the wall counts as a node like the former block tiles.
+                    nodes++;
+                    if (hopEvents) setPathNodes(nodes);
+                    traversalState = MazeTile.NO_EXIT;
+                }
+                end = true;
+                break;
+            }
+            int x = MazeBoard.keyX(pos);
+            int y = MazeBoard.keyY(pos);
+            MazeTile next = board.get(x, y);
+            if (next == null) {
+                if (metrics == null) {
+                    tile = createTile(x, y);
+                } else {
+                    long created = System.nanoTime();
+                    tile = createTile(x, y);
+                    metrics.onCreateTile(System.nanoTime() - created);
+                }
+                board.put(tile.getX(), tile.getY(), tile);
+                if (changes != null) {
+                    changes.add(ChangeBatch.PLACED, tile.getX(), tile.getY(), 0, tile.getPackedState());
+                }
+                if (history != null) history.place(tile);
+                break;
+            }
+            tile = next;
+            traversed++;
+            if (hopEvents) {
                 setCurrentTile(tile);
-                next();
-            } else {
-                addTile(createTile(pos));
+                setState(STATE_NEXT);
             }
+            SegmentIndex.Corridor corridor = segments == null ? null : segments.take(tile, traversalState);
+            if (corridor != null) {
+                // access the corridor up to its last tile, which the loop leaves as usual.
+                int last = corridor.size() - 1;
+                for (int i = 0; i < last; i++) {
+                    MazeTile hop = corridor.tile(i);
+                    if (history != null) history.touch(hop);
+                    packed = hop.getPackedState();
+                    hop.accessPath(corridor.entrance(i));
+                    if (changes != null) {
+                        changes.add(ChangeBatch.ACCESSED, hop.getX(), hop.getY(), packed, hop.getPackedState());
+                    }
+                    if (hop.isClosed()) closed++;
+                }
+                nodes += last;
+                traversed += last;
+                tile = corridor.tile(last);
+                traversalState = segments.opposite(corridor.entrance(last));
+            }
+        }
+        if (segments != null) {
+            // the tile left is no longer rotated, its open paths join the corridors.
+            if (end) segments.invalidate();
+            else segments.add(left);
+        }
 
-            if (originState == STATE_START) {
-                setState(STATE_START);
+        int finalState = end ? STATE_END : originState == STATE_START ? STATE_START : STATE_NEXT;
+        int delta = nodes - pathNodes;
+        long oldScore = score.getScore();
+        score.record(delta, closed);
+        if (history != null) {
+            history.end(finalState, tile, nodes, getTraversalState(), tileSource.getState(), score);
+        }
+        // draw the next tile ahead, so the listeners preview the window of the next move and the metrics time it.
+        if (!end) fillTileQueue();
+        setPathNodes(nodes);
+        setCurrentTile(tile);
+        setState(finalState);
+        fireScoreChanged(oldScore);
+        fireMove(traversed, delta, finalState);
+        if (metrics != null) {
+            metrics.onNext(System.nanoTime() - started, delta, board.size(), finalState);
+            if (end) metrics.onGameEnded(nodes);
+        }
+    }
+
+    /**
+     * Apply a burst of commands in one pass, notifying the listeners once.
+     * <p>The commands {@link MoveBatch#ROTATE} and {@link MoveBatch#NEXT} are played as {@link #rotate()} and
+     * {@link #next()}, with the history, the metrics and the change tracking, but none of their events. After the
+     * last command, the listeners are notified of the changes from the values before the batch: the current tile,
+     * the path nodes, the state and the score, then of {@link MazeListener#onBatch(MoveBatch)}, which alone tells
+     * the commands, the rotations included. The commands following the end of the game are rejected, and counted
+     * by the batch.</p>
+     *
+     * @param commands the commands.
+     * @param offset   the index of the first command.
+     * @param length   the number of commands.
+     * @param result   the batch to fill, reusable.
+     * @return the result.
+     * @throws IllegalArgumentException if a command is unknown, before any command is applied.
+     */
+    public MoveBatch apply(byte[] commands, int offset, int length, MoveBatch result) {
+        if (offset < 0 || length < 0 || offset > commands.length - length) {
+            throw new IndexOutOfBoundsException("Range [" + offset + ", " + offset + "+" + length + ") of "
+                    + commands.length);
+        }
+        for (int i = 0; i < length; i++) {
+            byte command = commands[offset + i];
+            if (command != MoveBatch.ROTATE && command != MoveBatch.NEXT) {
+                throw new IllegalArgumentException("Unknown command " + command + " at " + i);
             }
-        } else {
-            // notify the end of game.
-            setState(STATE_END);
         }
+        result.begin(this, commands, offset);
+        MazeListener[] active = this.active;
+        boolean suppressed = eventsSuppressed;
+        ChangeBatch changes = this.changes;
+        ChangeBatch batchChanges = result.changes();
+        // the events are deferred: no listener and no state callback while the commands are played.
+        this.active = NO_LISTENERS;
+        this.eventsSuppressed = true;
+        this.changes = batchChanges;
+        int i = 0;
+        boolean moved = false;
+        try {
+            for (; i < length && state > STATE_END; i++) {
+                if (commands[offset + i] == MoveBatch.ROTATE) {
+                    rotate();
+                    result.record(0);
+                } else {
+                    int nodes = pathNodes;
+                    next();
+                    moved = true;
+                    result.record(pathNodes - nodes);
+                }
+            }
+        } finally {
+            this.active = active;
+            this.eventsSuppressed = suppressed;
+            this.changes = changes;
+            if (changes != null) changes.addAll(batchChanges);
+        }
+        result.end(this, length - i);
+
+        MazeTile oldTile = result.getOldTile();
+        if (oldTile != currentTile) {
+            for (MazeListener listener : active) {
+                listener.onTileChanged(oldTile, currentTile);
+            }
+        }
+        int oldNodes = result.getOldPathNodes();
+        if (oldNodes != pathNodes) {
+            for (MazeListener listener : active) {
+                listener.onPathNodesChanged(oldNodes, pathNodes);
+            }
+        }
+        if (moved) {
+            for (MazeListener listener : active) {
+                listener.onStateChanged(result.getOldState(), state);
+            }
+        }
+        fireScoreChanged(result.getOldScore());
+        for (MazeListener listener : active) {
+            listener.onBatch(result);
+        }
+        return result;
+    }
+
+    /**
+     * Take back the last move.
+     * <p>The tiles, the current tile, the state and the path nodes are restored as before the move, and the source
+     * of the tiles too, so the move played again draws the same tile. The property changes are notified.</p>
+     *
+     * @return true if a move was undone, false if there is none.
+     * @throws IllegalStateException if the history is disabled.
+     */
+    public boolean undo() {
+        return travel(true);
+    }
+
+    /**
+     * Play again the last move taken back by {@link #undo()}.
+     *
+     * @return true if a move was redone, false if there is none.
+     * @throws IllegalStateException if the history is disabled.
+     */
+    public boolean redo() {
+        return travel(false);
+    }
+
+    private boolean travel(boolean undo) {
+        if (history == null) {
+            throw new IllegalStateException("The history is disabled.");
+        }
+        int slot = undo ? history.undo(board, changes) : history.redo(board, changes);
+        if (slot < 0) return false;
+        if (segments != null) segments.invalidate();
+        setTraversalState(history.getTraversal(slot, undo));
+        tileSource.setState(history.getRandom(slot, undo));
+        long oldScore = score.getScore();
+        history.getScore(slot, undo, score);
+        setPathNodes(history.getNodes(slot, undo));
+        setCurrentTile(history.getCurrent(slot, undo));
+        setState(history.getState(slot, undo));
+        fireScoreChanged(oldScore);
+        for (MazeListener listener : active) {
+            if (undo) listener.onUndo();
+            else listener.onRedo();
+        }
+        return true;
+    }
+
+    /**
+     * Get the undo/redo history.
+     *
+     * @return the {@link MoveHistory}, or null if disabled.
+     */
+    public MoveHistory getHistory() {
+        return history;
+    }
+
+    /**
+     * Set the undo/redo history, the moves are recorded from now on.
+     *
+     * @param history the {@link MoveHistory}, or null to disable it.
+     */
+    public void setHistory(MoveHistory history) {
+        if (history != null) history.clear();
+        this.history = history;
+    }
+
+    /**
+     * Get the state the strategy keeps to follow the path, saved along the moves by the history.
+     *
+     * @return the traversal state, negative if there is none.
+     */
+    public final int getTraversalState() {
+        return traversalState;
+    }
+
+    /**
+     * Set the state the strategy keeps to follow the path.
+     *
+     * @param traversalState the traversal state, negative if there is none.
+     */
+    public final void setTraversalState(int traversalState) {
+        this.traversalState = traversalState < 0 ? -1 : traversalState;
     }
 
     /**
      * Get current tiles of the maze.
+     * <p>The map is a view backed by {@link #getBoard()}, kept for compatibility.</p>
      *
      * @return the Map with position list as key and {@link MazeTile} as value.
      */
     public final Map<List, MazeTile> getTiles() {
+        if (tiles == null) {
+            tiles = new MazeBoardMap(board);
+        }
         return tiles;
     }
 
@@ -188,8 +789,11 @@ public abstract class MazeModel implements Serializable {
      * @param state the state of model.
      */
     public void setState(int state) {
-        propertyChangeSupport.firePropertyChange(PROPERTY_STATE, this.state, this.state = state);
-        notifyStateCallback(state);
+        int oldState = this.state;
+        this.state = state;
+        for (MazeListener listener : active) {
+            listener.onStateChanged(oldState, state);
+        }
     }
 
     /**
@@ -207,12 +811,31 @@ public abstract class MazeModel implements Serializable {
      * @param currentTile the {@link MazeTile}
      */
     public void setCurrentTile(MazeTile currentTile) {
-        propertyChangeSupport.firePropertyChange(PROPERTY_CURRENT_TILE, this.currentTile, this.currentTile = currentTile);
+        MazeTile oldTile = this.currentTile;
+        this.currentTile = currentTile;
+        if (oldTile != currentTile) {
+            for (MazeListener listener : active) {
+                listener.onTileChanged(oldTile, currentTile);
+            }
+        }
     }
 
     public void rotate() {
-        this.currentTile.rotate();
-        notifyStateCallback(STATE_ROTATE);
+        MazeMetrics metrics = this.metrics;
+        long started = metrics == null ? 0 : System.nanoTime();
+        if (history != null) history.discardRedo();
+        MazeTile tile = this.currentTile;
+        if (changes == null) {
+            tile.rotate();
+        } else {
+            int packed = tile.getPackedState();
+            tile.rotate();
+            changes.add(ChangeBatch.ROTATED, tile.getX(), tile.getY(), packed, tile.getPackedState());
+        }
+        for (MazeListener listener : active) {
+            listener.onRotate(currentTile);
+        }
+        if (metrics != null) metrics.onRotate(System.nanoTime() - started);
     }
 
     /**
@@ -224,87 +847,407 @@ public abstract class MazeModel implements Serializable {
         return pathNodes;
     }
 
+    /**
+     * Get the score of the game, see {@link MazeScore}.
+     *
+     * @return the score.
+     */
+    public long getScore() {
+        return score.getScore();
+    }
+
+    /**
+     * Get the score of the last move.
+     *
+     * @return the score of the last move, 0 if none.
+     */
+    public long getMoveScore() {
+        return score.getMoveScore();
+    }
+
+    /**
+     * Get the longest chain of a single move of the game.
+     *
+     * @return the number of segments.
+     */
+    public int getLongestChain() {
+        return score.getLongestChain();
+    }
+
+    /**
+     * Get the number of tiles whose paths are all accessed.
+     *
+     * @return the number of closed tiles.
+     */
+    public int getTilesClosed() {
+        return score.getTilesClosed();
+    }
+
+    private void fireScoreChanged(long oldScore) {
+        long newScore = score.getScore();
+        if (oldScore != newScore) {
+            for (MazeListener listener : active) {
+                listener.onScoreChanged(oldScore, newScore);
+            }
+        }
+    }
+
     /**
      * Set the number of path nodes.
      *
      * @param pathNodes the number of path nodes currently collected.
      */
     public void setPathNodes(int pathNodes) {
-        propertyChangeSupport.firePropertyChange(PROPERTY_PATH_NODES, this.pathNodes, this.pathNodes = pathNodes);
+        int oldNodes = this.pathNodes;
+        this.pathNodes = pathNodes;
+        if (oldNodes != pathNodes) {
+            for (MazeListener listener : active) {
+                listener.onPathNodesChanged(oldNodes, pathNodes);
+            }
+        }
+    }
+
+    /**
+     * Add the typed listener.
+     *
+     * @param listener the {@link MazeListener}.
+     */
+    public void addMazeListener(MazeListener listener) {
+        MazeListener[] copy = Arrays.copyOf(listeners, listeners.length + 1);
+        copy[listeners.length] = listener;
+        setListeners(copy);
+    }
+
+    /**
+     * Remove the typed listener.
+     *
+     * @param listener the {@link MazeListener}.
+     */
+    public void removeMazeListener(MazeListener listener) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i].equals(listener)) {
+                MazeListener[] copy = new MazeListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, copy, 0, i);
+                System.arraycopy(listeners, i + 1, copy, i, copy.length - i);
+                setListeners(copy.length == 0 ? NO_LISTENERS : copy);
+                return;
+            }
+        }
+    }
+
+    private void setListeners(MazeListener[] listeners) {
+        this.listeners = listeners;
+        if (eventsSuppressed || listeners.length == 0) {
+            this.active = NO_LISTENERS;
+        } else {
+            this.active = metrics == null ? listeners : MeteredListener.wrap(listeners, metrics);
+        }
+    }
+
+    /**
+     * Get whether the changed tiles are tracked.
+     *
+     * @return true if tracked.
+     */
+    public boolean isChangeTracking() {
+        return changes != null;
+    }
+
+    /**
+     * Set whether to track the changed tiles, for {@link #drainChanges(ChangeBatch)}.
+     * <p>The tracking starts reset, the view being built from the board first. It is not serialized with the
+     * model.</p>
+     *
+     * @param tracking true to track the changes.
+     */
+    public void setChangeTracking(boolean tracking) {
+        if (!tracking) {
+            changes = null;
+        } else if (changes == null) {
+            changes = new ChangeBatch();
+            changes.reset();
+        }
+    }
+
+    /**
+     * Get whether the open corridors are indexed.
+     *
+     * @return true if indexed.
+     */
+    boolean isSegmentIndexed() {
+        return segments != null;
+    }
+
+    /**
+     * Index the open corridors of the board, or stop indexing them.
+     *
+     * @param topology the topology of the tiles, or null to disable the index.
+     */
+    void setSegmentIndex(Topology topology) {
+        if (topology == null) {
+            segments = null;
+        } else {
+            segments = new SegmentIndex(topology);
+            segments.rebuild(board, currentTile);
+        }
+    }
+
+    /**
+     * Move the tiles changed since the last drain to the batch of the consumer.
+     *
+     * @param target the batch to fill, cleared first and reusable.
+     * @return true if there is any change to apply.
+     * @throws IllegalStateException if the tracking is disabled.
+     */
+    public boolean drainChanges(ChangeBatch target) {
+        if (changes == null) {
+            throw new IllegalStateException("The change tracking is disabled.");
+        }
+        changes.drainTo(target);
+        return !target.isEmpty();
+    }
+
+    /**
+     * Get the sink of the metrics.
+     *
+     * @return the {@link MazeMetrics}, or null if disabled.
+     */
+    public MazeMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Set the sink of the metrics of the moves, the rotations, the tile creations and the listener notifications.
+     * <p>While no sink is set, nothing is measured. The metrics are not serialized with the model.</p>
+     *
+     * @param metrics the {@link MazeMetrics}, or null to disable the metrics.
+     */
+    public void setMetrics(MazeMetrics metrics) {
+        this.metrics = metrics;
+        setListeners(listeners);
+    }
+
+    /**
+     * Get whether the events are suppressed.
+     *
+     * @return true if no listener is notified.
+     */
+    public boolean isEventsSuppressed() {
+        return eventsSuppressed;
+    }
+
+    /**
+     * Set whether the events are suppressed.
+     * <p>While suppressed, the listeners stay registered but none of them is notified, for example while replaying
+     * a game. It costs nothing on dispatch as the model simply iterates no listener.</p>
+     *
+     * @param eventsSuppressed true to suppress the events.
+     */
+    public void setEventsSuppressed(boolean eventsSuppressed) {
+        this.eventsSuppressed = eventsSuppressed;
+        setListeners(listeners);
+    }
+
+    /**
+     * Get the typed listeners.
+     *
+     * @return the copy of the registered {@link MazeListener}s.
+     */
+    public MazeListener[] getMazeListeners() {
+        return listeners.clone();
+    }
+
+    private PropertyChangeSupport attachPropertyChangeSupport() {
+        if (propertyChangeBridge == null) {
+            propertyChangeBridge = new PropertyChangeBridge(this);
+            addMazeListener(propertyChangeBridge);
+        }
+        return propertyChangeBridge.getPropertyChangeSupport();
+    }
+
+    private void detachPropertyChangeSupport() {
+        if (propertyChangeBridge != null
+                && propertyChangeBridge.getPropertyChangeSupport().getPropertyChangeListeners().length == 0) {
+            removeMazeListener(propertyChangeBridge);
+            propertyChangeBridge = null;
+        }
     }
 
     /**
      * @see PropertyChangeSupport#addPropertyChangeListener(java.beans.PropertyChangeListener)
      */
     public void addPropertyChangeListener(PropertyChangeListener listener) {
-        propertyChangeSupport.addPropertyChangeListener(listener);
+        attachPropertyChangeSupport().addPropertyChangeListener(listener);
     }
 
     /**
      * @see PropertyChangeSupport#removePropertyChangeListener(String, java.beans.PropertyChangeListener)
      */
     public void removePropertyChangeListener(String propertyName, PropertyChangeListener listener) {
-        propertyChangeSupport.removePropertyChangeListener(propertyName, listener);
+        if (propertyChangeBridge != null) {
+            propertyChangeBridge.getPropertyChangeSupport().removePropertyChangeListener(propertyName, listener);
+            detachPropertyChangeSupport();
+        }
     }
 
     /**
      * @see java.beans.PropertyChangeSupport#getPropertyChangeListeners()
      */
     public PropertyChangeListener[] getPropertyChangeListeners() {
-        return propertyChangeSupport.getPropertyChangeListeners();
+        if (propertyChangeBridge == null) return new PropertyChangeListener[0];
+        return propertyChangeBridge.getPropertyChangeSupport().getPropertyChangeListeners();
     }
 
     /**
      * @see PropertyChangeSupport#addPropertyChangeListener(String, java.beans.PropertyChangeListener)
      */
     public void addPropertyChangeListener(String propertyName, PropertyChangeListener listener) {
-        propertyChangeSupport.addPropertyChangeListener(propertyName, listener);
+        attachPropertyChangeSupport().addPropertyChangeListener(propertyName, listener);
     }
 
     /**
      * @see PropertyChangeSupport#getPropertyChangeListeners(String)
      */
     public PropertyChangeListener[] getPropertyChangeListeners(String propertyName) {
-        return propertyChangeSupport.getPropertyChangeListeners(propertyName);
+        if (propertyChangeBridge == null) return new PropertyChangeListener[0];
+        return propertyChangeBridge.getPropertyChangeSupport().getPropertyChangeListeners(propertyName);
     }
 
     /**
      * @see PropertyChangeSupport#removePropertyChangeListener(String, java.beans.PropertyChangeListener)
      */
     public void removePropertyChangeListener(PropertyChangeListener listener) {
-        propertyChangeSupport.removePropertyChangeListener(listener);
+        if (propertyChangeBridge != null) {
+            propertyChangeBridge.getPropertyChangeSupport().removePropertyChangeListener(listener);
+            detachPropertyChangeSupport();
+        }
     }
 
     /**
      * @see PropertyChangeSupport#hasListeners(String)
      */
     public boolean hasListeners(String propertyName) {
-        return propertyChangeSupport.hasListeners(propertyName);
+        return propertyChangeBridge != null
+                && propertyChangeBridge.getPropertyChangeSupport().hasListeners(propertyName);
     }
 
+    /**
+     * Start a new game seeded from the sequence of the model seed.
+     */
     public void initModel() {
+        initModel(seeds.nextLong());
+    }
+
+    /**
+     * Start a new game with the given seed.
+     * <p>Two games started with the same seed and played with the same actions are identical.</p>
+     *
+     * @param gameSeed the seed of the game.
+     */
+    public void initModel(long gameSeed) {
+        this.tileSource.reset(gameSeed);
+        if (history != null) history.clear();
+        if (changes != null) changes.reset();
         this.initTiles();
+        // the board was cleared, index it along the new game rather than on the first move.
+        if (segments != null) segments.rebuild(board, currentTile);
+        this.setPathNodes(0);
+        long oldScore = score.getScore();
+        score.reset();
+        fireScoreChanged(oldScore);
         this.setState(STATE_START);
+        for (MazeListener listener : active) {
+            listener.onInit(gameSeed);
+        }
+        fillTileQueue();
     }
 
     /**
-     * Notify the state callback.
+     * Notify the state callbacks alone, through the active listeners.
      *
      * @param state the state of model.
+     * @deprecated the state callbacks are listeners, notified with the others by {@link #setState(int)} and
+     * {@link #rotate()}.
      */
+    @Deprecated
     protected final void notifyStateCallback(int state) {
-        for (StateCallback callback : stateCallbacks) {
-            callback.onState(state);
+        MazeListener[] listeners = this.listeners;
+        MazeListener[] active = this.active;
+        // the active listeners are the registered ones in the same order, metered or not, and none when suppressed.
+        for (int i = 0; i < active.length && i < listeners.length; i++) {
+            if (!(listeners[i] instanceof StateCallbackListener)) continue;
+            if (state == STATE_ROTATE) {
+                active[i].onRotate(getCurrentTile());
+            } else {
+                active[i].onStateChanged(this.state, state);
+            }
+        }
+    }
+
+    /**
+     * Notify the listeners with the summary of the move.
+     *
+     * @param traversed the number of already placed tiles the path went through.
+     * @param nodes     the number of path nodes collected by the move.
+     * @param state     the state of model after the move.
+     */
+    protected final void fireMove(int traversed, int nodes, int state) {
+        for (MazeListener listener : active) {
+            listener.onMove(traversed, nodes, state);
+        }
+    }
+
+    /**
+     * Add a specific move callback.
+     *
+     * @param moveCallback the move callback.
+     */
+    public void addMoveCallback(MoveCallback moveCallback) {
+        MoveCallbackListener listener = new MoveCallbackListener(moveCallback);
+        if (!Arrays.asList(listeners).contains(listener)) {
+            addMazeListener(listener);
         }
     }
 
+    /**
+     * Remove a specific move callback.
+     *
+     * @param moveCallback the move callback.
+     */
+    public void removeMoveCallback(MoveCallback moveCallback) {
+        removeMazeListener(new MoveCallbackListener(moveCallback));
+    }
+
+    /**
+     * Get whether the events are fired on every tile the path goes through.
+     *
+     * @return true if the per tile events are enabled.
+     */
+    public boolean isHopEvents() {
+        return hopEvents;
+    }
+
+    /**
+     * Set whether the events are fired on every tile the path goes through.
+     * <p>When enabled, {@link #next()} fires {@link #STATE_NEXT}, {@link #PROPERTY_PATH_NODES} and
+     * {@link #PROPERTY_CURRENT_TILE} on every tile like the former recursive implementation did.</p>
+     *
+     * @param hopEvents true to enable the per tile events.
+     */
+    public void setHopEvents(boolean hopEvents) {
+        this.hopEvents = hopEvents;
+    }
+
     /**
      * Add a specific state callback.
      *
      * @param stateCallback the state callback.
      */
     public void addStateCallback(StateCallback stateCallback) {
-        this.stateCallbacks.add(stateCallback);
+        StateCallbackListener listener = new StateCallbackListener(stateCallback);
+        if (!Arrays.asList(listeners).contains(listener)) {
+            addMazeListener(listener);
+        }
     }
 
     /**
@@ -313,20 +1256,47 @@ public abstract class MazeModel implements Serializable {
      * @param stateCallback the state callback
      */
     public void removeStateCallback(StateCallback stateCallback) {
-        this.stateCallbacks.remove(stateCallback);
+        removeMazeListener(new StateCallbackListener(stateCallback));
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        listeners = NO_LISTENERS;
+        active = NO_LISTENERS;
     }
 
     /**
      * Get the next positon according to the current state.
      *
-     * @return the position.
+     * @return the position, or null for a dead end, which leaves no traversal state.
      */
-    protected abstract List<Integer> nextPosition(MazeTile tile);
+    protected List<Integer> nextPosition(MazeTile tile) {
+        long key = nextKey(tile);
+        if (key == NO_POSITION) {
+            // the wall keeps the traversal state for next() only.
+            setTraversalState(MazeTile.NO_EXIT);
+            return null;
+        }
+        return Arrays.asList(MazeBoard.keyX(key), MazeBoard.keyY(key));
+    }
+
+    /**
+     * Get the next position according to the current state, packed by {@link MazeBoard#key(int, int)}.
+     *
+     * @param tile the tile the path goes through.
+     * @return the packed position, or {@link #NO_POSITION} for a dead end, see
+     * {@link MazeStrategy#nextKey(MazeModel, MazeTile)}.
+     */
+    protected long nextKey(MazeTile tile) {
+        return strategy().nextKey(this, tile);
+    }
 
     /**
      * Initialize the maze.
      */
-    protected abstract void initTiles();
+    protected void initTiles() {
+        strategy().initTiles(this);
+    }
 
     /**
      * Create tile according to the position.
@@ -334,5 +1304,77 @@ public abstract class MazeModel implements Serializable {
      * @param position the position.
      * @return the {@link MazeTile}.
      */
-    protected abstract MazeTile createTile(List<Integer> position);
+    protected MazeTile createTile(List<Integer> position) {
+        return createTile(position.get(0), position.get(1));
+    }
+
+    /**
+     * Create tile at the position (x, y).
+     *
+     * @param x the x coordinate.
+     * @param y the y coordinate.
+     * @return the {@link MazeTile}.
+     */
+    protected MazeTile createTile(int x, int y) {
+        return strategy().createTile(this, x, y);
+    }
+
+    /**
+     * The adapter of {@link StateCallback}, notified on every state assignment and rotation.
+     */
+    private static final class StateCallbackListener implements MazeListener {
+
+        private final StateCallback callback;
+
+        StateCallbackListener(StateCallback callback) {
+            this.callback = callback;
+        }
+
+        @Override
+        public void onStateChanged(int oldState, int newState) {
+            callback.onState(newState);
+        }
+
+        @Override
+        public void onRotate(MazeTile tile) {
+            callback.onState(STATE_ROTATE);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof StateCallbackListener && ((StateCallbackListener) o).callback.equals(callback);
+        }
+
+        @Override
+        public int hashCode() {
+            return callback.hashCode();
+        }
+    }
+
+    /**
+     * The adapter of {@link MoveCallback}.
+     */
+    private static final class MoveCallbackListener implements MazeListener {
+
+        private final MoveCallback callback;
+
+        MoveCallbackListener(MoveCallback callback) {
+            this.callback = callback;
+        }
+
+        @Override
+        public void onMove(int traversed, int nodes, int state) {
+            callback.onMove(traversed, nodes, state);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof MoveCallbackListener && ((MoveCallbackListener) o).callback.equals(callback);
+        }
+
+        @Override
+        public int hashCode() {
+            return callback.hashCode();
+        }
+    }
 }
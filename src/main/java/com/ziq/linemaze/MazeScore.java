@@ -0,0 +1,102 @@
+package com.ziq.linemaze;
+
+import java.io.Serializable;
+
+/**
+ * The score of a game, updated incrementally by the moves of the {@link MazeModel}.
+ * <p>A move extending the line through k segments scores 1 + 2 + ... + k, so the longer chains are worth more than
+ * the same segments played one by one. The model counts the segments and the tiles closed while it walks the path,
+ * so the score never rescans the board.</p>
+ *
+ * @author ziq
+ */
+public class MazeScore implements Serializable {
+
+    private long score;
+    private long moveScore;
+    private int longestChain;
+    private int tilesClosed;
+
+    /**
+     * Get the score of a chain.
+     *
+     * @param segments the number of segments of the chain.
+     * @return 1 + 2 + ... + segments.
+     */
+    public static long chainScore(int segments) {
+        return segments <= 0 ? 0 : (long) segments * (segments + 1) / 2;
+    }
+
+    /**
+     * Get the score of the game.
+     *
+     * @return the score.
+     */
+    public long getScore() {
+        return score;
+    }
+
+    /**
+     * Get the score of the last move.
+     *
+     * @return the score of the last move, 0 if none.
+     */
+    public long getMoveScore() {
+        return moveScore;
+    }
+
+    /**
+     * Get the longest chain of a single move of the game.
+     *
+     * @return the number of segments.
+     */
+    public int getLongestChain() {
+        return longestChain;
+    }
+
+    /**
+     * Get the number of tiles whose paths are all accessed.
+     *
+     * @return the number of closed tiles.
+     */
+    public int getTilesClosed() {
+        return tilesClosed;
+    }
+
+    /**
+     * Add a move.
+     *
+     * @param segments the number of segments the move extended the line through.
+     * @param closed   the number of tiles the move closed.
+     */
+    void record(int segments, int closed) {
+        moveScore = chainScore(segments);
+        score += moveScore;
+        if (segments > longestChain) longestChain = segments;
+        tilesClosed += closed;
+    }
+
+    /**
+     * Restore the score.
+     */
+    void set(long score, long moveScore, int longestChain, int tilesClosed) {
+        this.score = score;
+        this.moveScore = moveScore;
+        this.longestChain = longestChain;
+        this.tilesClosed = tilesClosed;
+    }
+
+    void reset() {
+        set(0, 0, 0, 0);
+    }
+
+    @Override
+    public String toString() {
+        return "MazeScore{" +
+                "score=" + score +
+                ", moveScore=" + moveScore +
+                ", longestChain=" + longestChain +
+                ", tilesClosed=" + tilesClosed +
+                '}';
+    }
+}
@@ -1,36 +1,86 @@
 package com.ziq.linemaze;
 
-import java.io.Serializable;
+import java.util.Arrays;
 import java.util.List;
 
 /**
- * The maze strategy.
+ * The maze strategy: the rules of a board shape, played by a {@link MazeModel}.
+ * <p>The strategy keeps no state of its own: the state of the game lives in the model, the traversal state included,
+ * so one immutable strategy and its tables may serve any number of concurrent games.</p>
  *
  * @author ziq
  */
 public interface MazeStrategy {
 
     /**
-     * Initialize the tiles.
-     * To avoid null pointer exception, we didn't use the return value and use output parameter instead..
+     * Create the board of a new model.
+     *
+     * @return the empty {@link MazeBoard}.
+     */
+    public MazeBoard createBoard();
+
+    /**
+     * Initialize the tiles of a new game: place the first tiles and set the traversal state.
      *
      * @param model the model of the maze.
      */
     public void initTiles(MazeModel model);
 
+    /**
+     * Follow the path through the current tile, updating the traversal state of the model.
+     *
+     * @param model   the model of the maze.
+     * @param current the current {@link MazeTile}.
+     * @return the next position packed by {@link MazeBoard#key(int, int)}, or {@link MazeModel#NO_POSITION} for a
+     * dead end. A dead end leaving the traversal state set is a wall, which {@link MazeModel#next()} counts as a path
+     * node.
+     */
+    public long nextKey(MazeModel model, MazeTile current);
+
+    /**
+     * Create the tile at the position, drawn from the model.
+     *
+     * @param model the model of the maze.
+     * @param x     the x coordinate.
+     * @param y     the y coordinate.
+     * @return the {@link MazeTile}.
+     */
+    public MazeTile createTile(MazeModel model, int x, int y);
+
+    /**
+     * Get the number of the tile types drawn by {@link #createTile(MazeModel, int, int)} through
+     * {@link MazeModel#nextTileType(int)}, for the preview of the upcoming tiles before the first draw.
+     *
+     * @return the number of types, 0 if unknown.
+     */
+    public default int getTileTypeCount() {
+        return 0;
+    }
+
     /**
      * Get the connected position and exit with the given position and exit.
      *
+     * @param model   the model of the maze.
      * @param current the current {@link MazeTile}.
-     * @return the new location.
+     * @return the new location, or null for a dead end, which leaves no traversal state.
      */
-    public List<Integer> nextPosition(MazeTile current);
+    public default List<Integer> nextPosition(MazeModel model, MazeTile current) {
+        long key = nextKey(model, current);
+        if (key == MazeModel.NO_POSITION) {
+            model.setTraversalState(MazeTile.NO_EXIT);
+            return null;
+        }
+        return Arrays.asList(MazeBoard.keyX(key), MazeBoard.keyY(key));
+    }
 
     /**
      * Get tile by the given position.
      *
+     * @param model    the model of the maze.
      * @param position the position to find the tile.
      * @return the {@link MazeTile}.
      */
-    public MazeTile createTile(List<Integer> position);
+    public default MazeTile createTile(MazeModel model, List<Integer> position) {
+        return createTile(model, position.get(0), position.get(1));
+    }
 }
@@ -10,6 +10,11 @@ import java.util.List;
  */
 public interface MazeTile {
 
+    /**
+     * The exit of a dead end, returned by the primitive methods where the boxed ones return null.
+     */
+    public static final int NO_EXIT = -1;
+
     /**
      * Get the position of the tile.
      *
@@ -17,6 +22,20 @@ public interface MazeTile {
      */
     public List<Integer> getPosition();
 
+    /**
+     * Get the x coordinate of the tile.
+     *
+     * @return the x coordinate.
+     */
+    public int getX();
+
+    /**
+     * Get the y coordinate of the tile.
+     *
+     * @return the y coordinate.
+     */
+    public int getY();
+
     /**
      * Rotate once.
      */
@@ -31,8 +50,20 @@ public interface MazeTile {
      * Access the entrance and the corresponding exit.
      *
      * @param entrance the entrance.
+     * @return the exit, or null for a dead end.
+     */
+    public default Integer access(Integer entrance) {
+        int exit = accessPath(entrance);
+        return exit == NO_EXIT ? null : exit;
+    }
+
+    /**
+     * Access the entrance and the corresponding exit, without boxing.
+     *
+     * @param entrance the entrance.
+     * @return the exit, or {@link #NO_EXIT} for a dead end.
      */
-    public Integer access(Integer entrance);
+    public int accessPath(int entrance);
 
     /**
      * Get if the entrance path is accessed.
@@ -40,22 +71,104 @@ public interface MazeTile {
      * @param entrance the entrance of the path.
      * @return true if accessed.
      */
-    public Boolean isAccessed(Integer entrance);
+    public default Boolean isAccessed(Integer entrance) {
+        return isPathAccessed(entrance);
+    }
+
+    /**
+     * Get if the entrance path is accessed, without boxing.
+     *
+     * @param entrance the entrance of the path.
+     * @return true if accessed.
+     */
+    public boolean isPathAccessed(int entrance);
+
+    /**
+     * Get the packed state of the tile, which covers everything a move may change: its rotation and the accessed
+     * paths. The tiles without any such state return 0.
+     *
+     * @return the packed state.
+     */
+    public default int getPackedState() {
+        return 0;
+    }
+
+    /**
+     * Restore the packed state obtained from {@link #getPackedState()}.
+     *
+     * @param packed the packed state.
+     */
+    public default void setPackedState(int packed) {
+    }
+
+    /**
+     * Get if every path of the tile is accessed, so that the line can no longer enter the tile.
+     *
+     * @return true if closed, false for the tiles without any path.
+     */
+    public default boolean isClosed() {
+        Iterator<Path> paths = getPathIterator();
+        if (!paths.hasNext()) return false;
+        while (paths.hasNext()) {
+            if (!paths.next().isSelected()) return false;
+        }
+        return true;
+    }
 
     /**
      * Iterate the pathNodes.
      *
-     * @return the iterator with path.
+     * @return the iterator with path, empty for the tiles without any path.
      */
     public Iterator<Path> getPathIterator();
 
+    /**
+     * Visit the paths of the tile, in the same order and coordinates as {@link #getPathIterator()}.
+     * <p>The tiles implement it without allocating, so that the whole board may be visited on every frame.</p>
+     *
+     * @param visitor the visitor.
+     */
+    public default void forEachPath(PathVisitor visitor) {
+        Iterator<Path> paths = getPathIterator();
+        while (paths.hasNext()) {
+            Path path = paths.next();
+            visitor.visit(path.getExits().get(0), path.getExits().get(1), path.isSelected());
+        }
+    }
+
     /**
      * Get the exit of the path with given entrance code.
      *
      * @param entrance the entrance of the path.
-     * @return true if exit
+     * @return the exit, or null for a dead end.
+     */
+    public default Integer getExit(Integer entrance) {
+        int exit = exitOf(entrance);
+        return exit == NO_EXIT ? null : exit;
+    }
+
+    /**
+     * Get the exit of the path with given entrance code, without boxing.
+     *
+     * @param entrance the entrance of the path.
+     * @return the exit, or {@link #NO_EXIT} for a dead end.
      */
-    public Integer getExit(Integer entrance);
+    public int exitOf(int entrance);
+
+    /**
+     * The visitor of the paths of a {@link MazeTile}.
+     */
+    public interface PathVisitor {
+
+        /**
+         * Visit a path.
+         *
+         * @param a        the first exit of the path.
+         * @param b        the second exit of the path.
+         * @param selected whether the path is accessed.
+         */
+        public void visit(int a, int b, boolean selected);
+    }
 
     /**
      * The path object to iterate in {@link MazeTile}
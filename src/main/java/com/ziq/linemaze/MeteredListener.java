@@ -0,0 +1,103 @@
+package com.ziq.linemaze;
+
+/**
+ * The listener timing the notifications of another listener.
+ * <p>The model wraps its listeners only while the metrics are enabled, so the dispatch is not measured otherwise.</p>
+ *
+ * @author ziq
+ */
+final class MeteredListener implements MazeListener {
+
+    private final MazeListener listener;
+    private final MazeMetrics metrics;
+
+    MeteredListener(MazeListener listener, MazeMetrics metrics) {
+        this.listener = listener;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Wrap the listeners.
+     *
+     * @param listeners the listeners.
+     * @param metrics   the metrics.
+     * @return the metered listeners.
+     */
+    static MazeListener[] wrap(MazeListener[] listeners, MazeMetrics metrics) {
+        MazeListener[] metered = new MazeListener[listeners.length];
+        for (int i = 0; i < listeners.length; i++) {
+            metered[i] = new MeteredListener(listeners[i], metrics);
+        }
+        return metered;
+    }
+
+    @Override
+    public void onStateChanged(int oldState, int newState) {
+        long start = System.nanoTime();
+        listener.onStateChanged(oldState, newState);
+        metrics.onDispatch(listener, System.nanoTime() - start);
+    }
+
+    @Override
+    public void onTileChanged(MazeTile oldTile, MazeTile newTile) {
+        long start = System.nanoTime();
+        listener.onTileChanged(oldTile, newTile);
+        metrics.onDispatch(listener, System.nanoTime() - start);
+    }
+
+    @Override
+    public void onPathNodesChanged(int oldNodes, int newNodes) {
+        long start = System.nanoTime();
+        listener.onPathNodesChanged(oldNodes, newNodes);
+        metrics.onDispatch(listener, System.nanoTime() - start);
+    }
+
+    @Override
+    public void onInit(long gameSeed) {
+        long start = System.nanoTime();
+        listener.onInit(gameSeed);
+        metrics.onDispatch(listener, System.nanoTime() - start);
+    }
+
+    @Override
+    public void onRotate(MazeTile tile) {
+        long start = System.nanoTime();
+        listener.onRotate(tile);
+        metrics.onDispatch(listener, System.nanoTime() - start);
+    }
+
+    @Override
+    public void onUndo() {
+        long start = System.nanoTime();
+        listener.onUndo();
+        metrics.onDispatch(listener, System.nanoTime() - start);
+    }
+
+    @Override
+    public void onRedo() {
+        long start = System.nanoTime();
+        listener.onRedo();
+        metrics.onDispatch(listener, System.nanoTime() - start);
+    }
+
+    @Override
+    public void onMove(int traversed, int nodes, int state) {
+        long start = System.nanoTime();
+        listener.onMove(traversed, nodes, state);
+        metrics.onDispatch(listener, System.nanoTime() - start);
+    }
+
+    @Override
+    public void onScoreChanged(long oldScore, long newScore) {
+        long start = System.nanoTime();
+        listener.onScoreChanged(oldScore, newScore);
+        metrics.onDispatch(listener, System.nanoTime() - start);
+    }
+
+    @Override
+    public void onBatch(MoveBatch batch) {
+        long start = System.nanoTime();
+        listener.onBatch(batch);
+        metrics.onDispatch(listener, System.nanoTime() - start);
+    }
+}
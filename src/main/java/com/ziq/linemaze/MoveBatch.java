@@ -0,0 +1,206 @@
+package com.ziq.linemaze;
+
+import java.util.Arrays;
+
+/**
+ * The commands of a burst of input applied by {@link MazeModel#apply(byte[], int, int, MoveBatch)}, and their
+ * consolidated result.
+ * <p>The batch is filled by the model and reused by the caller: the listeners notified by
+ * {@link MazeListener#onBatch(MoveBatch)} must not keep it.</p>
+ *
+ * @author ziq
+ */
+public final class MoveBatch {
+
+    /**
+     * The command {@link MazeModel#rotate()}.
+     */
+    public static final byte ROTATE = 1;
+
+    /**
+     * The command {@link MazeModel#next()}.
+     */
+    public static final byte NEXT = 2;
+
+    private final ChangeBatch changes;
+    private byte[] commands;
+    private int offset;
+    private int[] nodes = new int[16];
+    private int applied;
+    private int rejected;
+    private int oldState;
+    private int state;
+    private int oldPathNodes;
+    private int pathNodes;
+    private long oldScore;
+    private long score;
+    private MazeTile oldTile;
+    private MazeTile tile;
+
+    /**
+     * Construct the batch recording up to {@link ChangeBatch#DEFAULT_CAPACITY} changed tiles.
+     */
+    public MoveBatch() {
+        this(ChangeBatch.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Construct the batch.
+     *
+     * @param capacity the number of changed tiles recorded before the changes are reset.
+     */
+    public MoveBatch(int capacity) {
+        this.changes = new ChangeBatch(capacity);
+    }
+
+    void begin(MazeModel model, byte[] commands, int offset) {
+        this.commands = commands;
+        this.offset = offset;
+        this.applied = 0;
+        this.rejected = 0;
+        this.oldState = model.getState();
+        this.oldPathNodes = model.getPathNodes();
+        this.oldScore = model.getScore();
+        this.oldTile = model.getCurrentTile();
+        changes.clear();
+    }
+
+    void record(int nodes) {
+        if (applied == this.nodes.length) {
+            this.nodes = Arrays.copyOf(this.nodes, applied * 2);
+        }
+        this.nodes[applied++] = nodes;
+    }
+
+    void end(MazeModel model, int rejected) {
+        this.rejected = rejected;
+        this.state = model.getState();
+        this.pathNodes = model.getPathNodes();
+        this.score = model.getScore();
+        this.tile = model.getCurrentTile();
+    }
+
+    ChangeBatch changes() {
+        return changes;
+    }
+
+    /**
+     * Get the number of the commands applied.
+     *
+     * @return the number of commands applied, from the first one.
+     */
+    public int getApplied() {
+        return applied;
+    }
+
+    /**
+     * Get the number of the commands rejected since the game had ended.
+     *
+     * @return the number of the last commands not applied.
+     */
+    public int getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Get the applied command.
+     *
+     * @param index the index in [0, {@link #getApplied()}).
+     * @return {@link #ROTATE} or {@link #NEXT}.
+     */
+    public byte getCommand(int index) {
+        if (index < 0 || index >= applied) throw new IndexOutOfBoundsException("Index: " + index);
+        return commands[offset + index];
+    }
+
+    /**
+     * Get the path nodes collected by the applied command.
+     *
+     * @param index the index in [0, {@link #getApplied()}).
+     * @return the path nodes of a {@link #NEXT}, 0 for a {@link #ROTATE}.
+     */
+    public int getNodes(int index) {
+        if (index < 0 || index >= applied) throw new IndexOutOfBoundsException("Index: " + index);
+        return nodes[index];
+    }
+
+    public int getOldState() {
+        return oldState;
+    }
+
+    /**
+     * Get the state of the model after the batch.
+     *
+     * @return the state.
+     */
+    public int getState() {
+        return state;
+    }
+
+    /**
+     * Get the path nodes collected by the batch.
+     *
+     * @return the difference of the path nodes.
+     */
+    public int getPathNodeDelta() {
+        return pathNodes - oldPathNodes;
+    }
+
+    public int getOldPathNodes() {
+        return oldPathNodes;
+    }
+
+    public int getPathNodes() {
+        return pathNodes;
+    }
+
+    /**
+     * Get the score gained by the batch.
+     *
+     * @return the difference of the score.
+     */
+    public long getScoreDelta() {
+        return score - oldScore;
+    }
+
+    public long getOldScore() {
+        return oldScore;
+    }
+
+    public long getScore() {
+        return score;
+    }
+
+    public MazeTile getOldTile() {
+        return oldTile;
+    }
+
+    /**
+     * Get the current tile after the batch.
+     *
+     * @return the {@link MazeTile}.
+     */
+    public MazeTile getCurrentTile() {
+        return tile;
+    }
+
+    /**
+     * Get the tiles changed by the batch, rotated, accessed or placed.
+     *
+     * @return the {@link ChangeBatch}, reset if there were more changes than its capacity.
+     */
+    public ChangeBatch getChanges() {
+        return changes;
+    }
+
+    @Override
+    public String toString() {
+        return "MoveBatch{" +
+                "applied=" + applied +
+                ", rejected=" + rejected +
+                ", state=" + state +
+                ", pathNodeDelta=" + getPathNodeDelta() +
+                ", changes=" + changes.size() +
+                '}';
+    }
+}
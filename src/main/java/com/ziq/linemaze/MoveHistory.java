@@ -0,0 +1,327 @@
+package com.ziq.linemaze;
+
+import java.util.Arrays;
+
+/**
+ * The undo/redo history of the moves of a {@link MazeModel}.
+ * <p>Instead of copying the board before every move, the history keeps the delta of each move: the packed state
+ * of every tile the path went through before and after the move, the tile placed by the move, and the fields of
+ * the model around it. Undoing or redoing a move therefore costs time proportional to the tiles the move touched,
+ * not to the size of the board, and the board itself is shared by all the versions.</p>
+ * <p>The moves are kept in a ring of fixed capacity whose slots reuse their buffers, so the memory stays bounded
+ * and the steady state allocates nothing. When the ring is full, the oldest move can no longer be undone.</p>
+ *
+ * @author ziq
+ */
+public class MoveHistory {
+
+    /**
+     * The default number of moves kept.
+     */
+    public static final int DEFAULT_CAPACITY = 10000;
+
+    private static final int INITIAL_TOUCHES = 4;
+
+    private final int capacity;
+
+    /**
+     * The index of the oldest move in the ring.
+     */
+    private int first = 0;
+
+    /**
+     * The number of moves which can be undone.
+     */
+    private int undoable = 0;
+
+    /**
+     * The number of moves which can be redone, following the undoable ones in the ring.
+     */
+    private int redoable = 0;
+
+    private final MazeTile[][] tiles;
+    private final int[][] before;
+    private final int[][] after;
+    private final int[] touches;
+    private final MazeTile[] placed;
+    private final MazeTile[] currentBefore;
+    private final MazeTile[] currentAfter;
+    private final int[] stateBefore;
+    private final int[] stateAfter;
+    private final int[] nodesBefore;
+    private final int[] nodesAfter;
+    private final int[] traversalBefore;
+    private final int[] traversalAfter;
+    private final long[] randomBefore;
+    private final long[] randomAfter;
+    private final long[] scoreBefore;
+    private final long[] scoreAfter;
+    private final long[] moveScoreBefore;
+    private final long[] moveScoreAfter;
+    private final int[] longestBefore;
+    private final int[] longestAfter;
+    private final int[] closedBefore;
+    private final int[] closedAfter;
+
+    /**
+     * The slot of the move being recorded, or -1.
+     */
+    private int recording = -1;
+
+    /**
+     * Construct the history of {@link #DEFAULT_CAPACITY} moves.
+     */
+    public MoveHistory() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Construct the history.
+     *
+     * @param capacity the number of moves kept.
+     */
+    public MoveHistory(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Illegal capacity: " + capacity);
+        }
+        this.capacity = capacity;
+        tiles = new MazeTile[capacity][];
+        before = new int[capacity][];
+        after = new int[capacity][];
+        touches = new int[capacity];
+        placed = new MazeTile[capacity];
+        currentBefore = new MazeTile[capacity];
+        currentAfter = new MazeTile[capacity];
+        stateBefore = new int[capacity];
+        stateAfter = new int[capacity];
+        nodesBefore = new int[capacity];
+        nodesAfter = new int[capacity];
+        traversalBefore = new int[capacity];
+        traversalAfter = new int[capacity];
+        randomBefore = new long[capacity];
+        randomAfter = new long[capacity];
+        scoreBefore = new long[capacity];
+        scoreAfter = new long[capacity];
+        moveScoreBefore = new long[capacity];
+        moveScoreAfter = new long[capacity];
+        longestBefore = new int[capacity];
+        longestAfter = new int[capacity];
+        closedBefore = new int[capacity];
+        closedAfter = new int[capacity];
+    }
+
+    private int slot(int i) {
+        return (first + i) % capacity;
+    }
+
+    /**
+     * Start recording a move, dropping the moves which could be redone.
+     */
+    void begin(int state, MazeTile current, int nodes, int traversal, long random, MazeScore score) {
+        discardRedo();
+        if (undoable == capacity) {
+            // forget the oldest move.
+            release(first);
+            first = slot(1);
+            undoable--;
+        }
+        int slot = slot(undoable);
+        recording = slot;
+        touches[slot] = 0;
+        placed[slot] = null;
+        currentBefore[slot] = current;
+        stateBefore[slot] = state;
+        nodesBefore[slot] = nodes;
+        traversalBefore[slot] = traversal;
+        randomBefore[slot] = random;
+        scoreBefore[slot] = score.getScore();
+        moveScoreBefore[slot] = score.getMoveScore();
+        longestBefore[slot] = score.getLongestChain();
+        closedBefore[slot] = score.getTilesClosed();
+    }
+
+    /**
+     * Record the state of the tile before the path goes through it.
+     */
+    void touch(MazeTile tile) {
+        int slot = recording;
+        int n = touches[slot];
+        if (tiles[slot] == null) {
+            tiles[slot] = new MazeTile[INITIAL_TOUCHES];
+            before[slot] = new int[INITIAL_TOUCHES];
+            after[slot] = new int[INITIAL_TOUCHES];
+        } else if (n == tiles[slot].length) {
+            tiles[slot] = Arrays.copyOf(tiles[slot], n * 2);
+            before[slot] = Arrays.copyOf(before[slot], n * 2);
+            after[slot] = Arrays.copyOf(after[slot], n * 2);
+        }
+        tiles[slot][n] = tile;
+        before[slot][n] = tile.getPackedState();
+        touches[slot] = n + 1;
+    }
+
+    /**
+     * Record the tile placed by the move.
+     */
+    void place(MazeTile tile) {
+        placed[recording] = tile;
+    }
+
+    /**
+     * Finish recording the move.
+     */
+    void end(int state, MazeTile current, int nodes, int traversal, long random, MazeScore score) {
+        int slot = recording;
+        for (int i = 0; i < touches[slot]; i++) {
+            after[slot][i] = tiles[slot][i].getPackedState();
+        }
+        currentAfter[slot] = current;
+        stateAfter[slot] = state;
+        nodesAfter[slot] = nodes;
+        traversalAfter[slot] = traversal;
+        randomAfter[slot] = random;
+        scoreAfter[slot] = score.getScore();
+        moveScoreAfter[slot] = score.getMoveScore();
+        longestAfter[slot] = score.getLongestChain();
+        closedAfter[slot] = score.getTilesClosed();
+        recording = -1;
+        undoable++;
+    }
+
+    /**
+     * Drop the moves which could be redone, when another action is taken.
+     */
+    void discardRedo() {
+        for (int i = 0; i < redoable; i++) {
+            release(slot(undoable + i));
+        }
+        redoable = 0;
+    }
+
+    private void release(int slot) {
+        // keep the buffers for reuse, only drop the references to the tiles.
+        if (tiles[slot] != null) {
+            Arrays.fill(tiles[slot], 0, touches[slot], null);
+        }
+        touches[slot] = 0;
+        placed[slot] = null;
+        currentBefore[slot] = null;
+        currentAfter[slot] = null;
+    }
+
+    /**
+     * Undo the last move on the board.
+     *
+     * @param board   the board.
+     * @param changes the batch recording the changed tiles, or null.
+     * @return the slot of the undone move, or -1 if there is nothing to undo.
+     */
+    int undo(MazeBoard board, ChangeBatch changes) {
+        if (undoable == 0) return -1;
+        undoable--;
+        redoable++;
+        int slot = slot(undoable);
+        MazeTile tile = placed[slot];
+        if (tile != null) {
+            board.remove(tile.getX(), tile.getY());
+            if (changes != null) changes.add(ChangeBatch.REMOVED, tile.getX(), tile.getY(), tile.getPackedState(), 0);
+        }
+        for (int i = touches[slot] - 1; i >= 0; i--) {
+            restore(tiles[slot][i], before[slot][i], changes);
+        }
+        return slot;
+    }
+
+    private static void restore(MazeTile tile, int packed, ChangeBatch changes) {
+        if (changes != null) {
+            changes.add(ChangeBatch.RESTORED, tile.getX(), tile.getY(), tile.getPackedState(), packed);
+        }
+        tile.setPackedState(packed);
+    }
+
+    /**
+     * Redo the last undone move on the board.
+     *
+     * @param board   the board.
+     * @param changes the batch recording the changed tiles, or null.
+     * @return the slot of the redone move, or -1 if there is nothing to redo.
+     */
+    int redo(MazeBoard board, ChangeBatch changes) {
+        if (redoable == 0) return -1;
+        int slot = slot(undoable);
+        undoable++;
+        redoable--;
+        for (int i = 0; i < touches[slot]; i++) {
+            restore(tiles[slot][i], after[slot][i], changes);
+        }
+        MazeTile tile = placed[slot];
+        if (tile != null) {
+            board.put(tile.getX(), tile.getY(), tile);
+            if (changes != null) changes.add(ChangeBatch.PLACED, tile.getX(), tile.getY(), 0, tile.getPackedState());
+        }
+        return slot;
+    }
+
+    MazeTile getCurrent(int slot, boolean undone) {
+        return undone ? currentBefore[slot] : currentAfter[slot];
+    }
+
+    int getState(int slot, boolean undone) {
+        return undone ? stateBefore[slot] : stateAfter[slot];
+    }
+
+    int getNodes(int slot, boolean undone) {
+        return undone ? nodesBefore[slot] : nodesAfter[slot];
+    }
+
+    int getTraversal(int slot, boolean undone) {
+        return undone ? traversalBefore[slot] : traversalAfter[slot];
+    }
+
+    long getRandom(int slot, boolean undone) {
+        return undone ? randomBefore[slot] : randomAfter[slot];
+    }
+
+    void getScore(int slot, boolean undone, MazeScore score) {
+        if (undone) {
+            score.set(scoreBefore[slot], moveScoreBefore[slot], longestBefore[slot], closedBefore[slot]);
+        } else {
+            score.set(scoreAfter[slot], moveScoreAfter[slot], longestAfter[slot], closedAfter[slot]);
+        }
+    }
+
+    /**
+     * Forget all the moves, when a new game starts.
+     */
+    public void clear() {
+        discardRedo();
+        for (int i = 0; i < undoable; i++) {
+            release(slot(i));
+        }
+        first = 0;
+        undoable = 0;
+        recording = -1;
+    }
+
+    /**
+     * Get the number of moves which can be undone.
+     *
+     * @return the number of moves.
+     */
+    public int getUndoable() {
+        return undoable;
+    }
+
+    /**
+     * Get the number of moves which can be redone.
+     *
+     * @return the number of moves.
+     */
+    public int getRedoable() {
+        return redoable;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,307 @@
+package com.ziq.linemaze;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The append-only journal of the actions applied to a {@link MazeModel}.
+ * <p>The journal listens to the model and appends one fixed-width record of {@link #RECORD_BYTES} bytes per
+ * action, the commands of a {@link MoveBatch} included: the operation (byte) and its argument (long), which is the
+ * game seed for {@link MazeModel#initModel()} and the path nodes collected by {@link MazeModel#next()}, checked on
+ * replay. The records are buffered and written to the file channel when the buffer is full, and the channel is
+ * forced to the disk every {@code syncEvery} records.</p>
+ * <p>Since the tiles are drawn from the seed of the game, {@link #replay(Path, MazeModel)} rebuilds the state of
+ * the model by re-applying the records with the events suppressed.</p>
+ *
+ * @author ziq
+ */
+public class MoveJournal implements MazeListener, Flushable, Closeable {
+
+    /**
+     * The magic number of the journal, "LMZJ".
+     */
+    public static final int MAGIC = 0x4c4d5a4a;
+
+    /**
+     * The version of the journal format.
+     */
+    public static final short VERSION = 1;
+
+    /**
+     * The size of the header in bytes.
+     */
+    public static final int HEADER_BYTES = 4 + 2;
+
+    /**
+     * The size of a record in bytes.
+     */
+    public static final int RECORD_BYTES = 1 + 8;
+
+    /**
+     * The operation {@link MazeModel#initModel(long)}.
+     */
+    public static final byte OP_INIT = 1;
+
+    /**
+     * The operation {@link MazeModel#rotate()}.
+     */
+    public static final byte OP_ROTATE = 2;
+
+    /**
+     * The operation {@link MazeModel#next()}.
+     */
+    public static final byte OP_NEXT = 3;
+
+    /**
+     * The operation {@link MazeModel#undo()}.
+     */
+    public static final byte OP_UNDO = 4;
+
+    /**
+     * The operation {@link MazeModel#redo()}.
+     */
+    public static final byte OP_REDO = 5;
+
+    private static final int BUFFER_BYTES = RECORD_BYTES * 7282;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    private final int syncEvery;
+    private int unsynced = 0;
+    private long records = 0;
+
+    private MoveJournal(FileChannel channel, int syncEvery) {
+        this.channel = channel;
+        this.syncEvery = syncEvery;
+    }
+
+    /**
+     * Open the journal for appending, creating it if needed.
+     * <p>A record left incomplete by a crash is dropped.</p>
+     *
+     * @param file      the journal file.
+     * @param syncEvery the number of records between two forces to the disk.
+     * @return the journal.
+     * @throws IOException if the file cannot be opened or is not a journal.
+     */
+    public static MoveJournal open(Path file, int syncEvery) throws IOException {
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long size = channel.size();
+            if (size == 0) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                header.putInt(MAGIC).putShort(VERSION).flip();
+                while (header.hasRemaining()) {
+                    channel.write(header, HEADER_BYTES - header.remaining());
+                }
+                channel.force(false);
+                size = HEADER_BYTES;
+            } else {
+                readHeader(channel);
+            }
+            long records = (size - HEADER_BYTES) / RECORD_BYTES;
+            long end = HEADER_BYTES + records * RECORD_BYTES;
+            if (end != size) {
+                channel.truncate(end);
+            }
+            channel.position(end);
+            MoveJournal journal = new MoveJournal(channel, Math.max(1, syncEvery));
+            journal.records = records;
+            return journal;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static void readHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                throw new EOFException("Truncated journal.");
+            }
+        }
+        header.flip();
+        if (header.getInt() != MAGIC) {
+            throw new StreamCorruptedException("Not a maze journal.");
+        }
+        short version = header.getShort();
+        if (version != VERSION) {
+            throw new StreamCorruptedException("Unsupported journal version: " + version);
+        }
+    }
+
+    /**
+     * Append a record.
+     *
+     * @param op       the operation.
+     * @param argument the argument of the operation.
+     * @throws IOException if the channel fails.
+     */
+    public void append(byte op, long argument) throws IOException {
+        if (buffer.remaining() < RECORD_BYTES) {
+            writeBuffer();
+        }
+        buffer.put(op).putLong(argument);
+        records++;
+        if (++unsynced >= syncEvery) {
+            sync();
+        }
+    }
+
+    private void writeBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void appendUnchecked(byte op, long argument) {
+        try {
+            append(op, argument);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void onInit(long gameSeed) {
+        appendUnchecked(OP_INIT, gameSeed);
+    }
+
+    @Override
+    public void onRotate(MazeTile tile) {
+        appendUnchecked(OP_ROTATE, 0);
+    }
+
+    @Override
+    public void onMove(int traversed, int nodes, int state) {
+        appendUnchecked(OP_NEXT, nodes);
+    }
+
+    @Override
+    public void onBatch(MoveBatch batch) {
+        for (int i = 0, n = batch.getApplied(); i < n; i++) {
+            if (batch.getCommand(i) == MoveBatch.ROTATE) appendUnchecked(OP_ROTATE, 0);
+            else appendUnchecked(OP_NEXT, batch.getNodes(i));
+        }
+    }
+
+    @Override
+    public void onUndo() {
+        appendUnchecked(OP_UNDO, 0);
+    }
+
+    @Override
+    public void onRedo() {
+        appendUnchecked(OP_REDO, 0);
+    }
+
+    /**
+     * Write the buffered records to the channel, without forcing them to the disk.
+     *
+     * @throws IOException if the channel fails.
+     */
+    @Override
+    public void flush() throws IOException {
+        writeBuffer();
+    }
+
+    /**
+     * Write the buffered records and force them to the disk.
+     *
+     * @throws IOException if the channel fails.
+     */
+    public void sync() throws IOException {
+        writeBuffer();
+        channel.force(false);
+        unsynced = 0;
+    }
+
+    /**
+     * Get the number of records in the journal.
+     *
+     * @return the number of records, including the buffered ones.
+     */
+    public long getRecords() {
+        return records;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            sync();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Replay the journal on the model.
+     * <p>The events of the model are suppressed during the replay, and the model is left in the state of the last
+     * record. A record left incomplete by a crash is ignored.</p>
+     *
+     * @param file  the journal file.
+     * @param model the model, of the same kind and area, and with the same history capacity as the journaled one.
+     * @return the number of records applied.
+     * @throws IOException if the file cannot be read, or a move does not lead to the journaled result.
+     */
+    public static long replay(Path file, MazeModel model) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        boolean suppressed = model.isEventsSuppressed();
+        model.setEventsSuppressed(true);
+        try {
+            readHeader(channel);
+            channel.position(HEADER_BYTES);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+            long applied = 0;
+            while (channel.read(buffer) >= 0 || buffer.position() >= RECORD_BYTES) {
+                buffer.flip();
+                while (buffer.remaining() >= RECORD_BYTES) {
+                    byte op = buffer.get();
+                    long argument = buffer.getLong();
+                    switch (op) {
+                        case OP_INIT:
+                            model.initModel(argument);
+                            break;
+                        case OP_ROTATE:
+                            model.rotate();
+                            break;
+                        case OP_NEXT:
+                            int nodes = model.getPathNodes();
+                            model.next();
+                            if (model.getPathNodes() - nodes != argument) {
+                                throw new StreamCorruptedException("The move " + applied
+                                        + " diverges from the journal, is it the same kind of model?");
+                            }
+                            break;
+                        case OP_UNDO:
+                            model.undo();
+                            break;
+                        case OP_REDO:
+                            model.redo();
+                            break;
+                        default:
+                            throw new StreamCorruptedException("Unknown operation " + op + " at record " + applied);
+                    }
+                    applied++;
+                }
+                buffer.compact();
+            }
+            return applied;
+        } finally {
+            model.setEventsSuppressed(suppressed);
+            channel.close();
+        }
+    }
+}
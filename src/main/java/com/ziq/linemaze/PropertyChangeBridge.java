@@ -0,0 +1,53 @@
+package com.ziq.linemaze;
+
+import java.beans.PropertyChangeSupport;
+
+/**
+ * The adapter forwarding the {@link MazeListener} notifications to {@link java.beans.PropertyChangeListener}s.
+ * <p>The model registers the bridge only while property change listeners are attached, so the boxing and the
+ * event objects are only paid for by those listeners.</p>
+ *
+ * @author ziq
+ */
+public class PropertyChangeBridge implements MazeListener {
+
+    private final PropertyChangeSupport propertyChangeSupport;
+
+    /**
+     * Construct the bridge.
+     *
+     * @param source the source bean of the events.
+     */
+    public PropertyChangeBridge(Object source) {
+        this.propertyChangeSupport = new PropertyChangeSupport(source);
+    }
+
+    /**
+     * Get the underlying property change support.
+     *
+     * @return the {@link PropertyChangeSupport}.
+     */
+    public PropertyChangeSupport getPropertyChangeSupport() {
+        return propertyChangeSupport;
+    }
+
+    @Override
+    public void onStateChanged(int oldState, int newState) {
+        propertyChangeSupport.firePropertyChange(MazeModel.PROPERTY_STATE, oldState, newState);
+    }
+
+    @Override
+    public void onTileChanged(MazeTile oldTile, MazeTile newTile) {
+        propertyChangeSupport.firePropertyChange(MazeModel.PROPERTY_CURRENT_TILE, oldTile, newTile);
+    }
+
+    @Override
+    public void onPathNodesChanged(int oldNodes, int newNodes) {
+        propertyChangeSupport.firePropertyChange(MazeModel.PROPERTY_PATH_NODES, oldNodes, newNodes);
+    }
+
+    @Override
+    public void onScoreChanged(long oldScore, long newScore) {
+        propertyChangeSupport.firePropertyChange(MazeModel.PROPERTY_SCORE, oldScore, newScore);
+    }
+}
@@ -0,0 +1,309 @@
+package com.ziq.linemaze;
+
+/**
+ * The index of the open corridors of a line maze, to walk them in one step.
+ * <p>A corridor is a maximal chain of unaccessed paths through the placed tiles. Its two ends are the exits facing
+ * anything else: an empty position, a wall, a tile without paths, or the current tile, which is left out since its
+ * rotation changes its paths. The index maps each end to its corridor, which keeps its tiles in order, so a path
+ * entering a corridor is taken to its far end without looking the board up or following the topology hop by hop.</p>
+ * <p>The index is updated as the moves go: the corridors walked are removed, and the tile left behind by a move
+ * joins the open paths it still has to the corridors of its neighbours, concatenating the smaller one onto the
+ * larger one. Anything else changing the tiles, an undo, a redo or a restored game, invalidates the index, which is
+ * rebuilt from the board on the next move.</p>
+ *
+ * @author ziq
+ */
+final class SegmentIndex {
+
+    private final Topology topology;
+    private boolean valid;
+
+    /**
+     * The open addressing map of the ends: position, exit plus one (0 when free) and corridor.
+     */
+    private long[] positions = new long[16];
+    private byte[] exits = new byte[16];
+    private Corridor[] corridors = new Corridor[16];
+    private int size;
+
+    SegmentIndex(Topology topology) {
+        this.topology = topology;
+    }
+
+    boolean isValid() {
+        return valid;
+    }
+
+    void invalidate() {
+        valid = false;
+    }
+
+    /**
+     * Rebuild the index from the board.
+     *
+     * @param current the current tile, left out.
+     */
+    void rebuild(MazeBoard board, MazeTile current) {
+        int capacity = positions.length;
+        if (capacity > 16 && size < capacity >> 3) capacity = 16;
+        positions = new long[capacity];
+        exits = new byte[capacity];
+        corridors = new Corridor[capacity];
+        size = 0;
+        for (MazeTile tile : board) {
+            if (tile != current) add(tile);
+        }
+        valid = true;
+    }
+
+    /**
+     * Join the open paths of the tile to the corridors around it.
+     */
+    void add(MazeTile tile) {
+        if (!(tile instanceof LineTile) || ((LineTile) tile).getTopology() != topology) return;
+        LineTile line = (LineTile) tile;
+        int count = topology.getExits();
+        for (int a = 0; a < count; a++) {
+            int b = line.exitOf(a);
+            if (a < b && !line.isPathAccessed(a)) join(line, a, b);
+        }
+    }
+
+    /**
+     * Take the corridor entered from the exit of the previous tile out of the index.
+     *
+     * @param tile the tile entered.
+     * @param exit the exit the path left the previous tile by.
+     * @return the corridor oriented from the tile, or null if the tile does not start any.
+     */
+    Corridor take(MazeTile tile, int exit) {
+        if (!valid) return null;
+        int entrance = topology.opposite(exit);
+        int slot = find(MazeBoard.key(tile.getX(), tile.getY()), entrance);
+        if (slot < 0) return null;
+        Corridor corridor = corridors[slot];
+        if (corridor.tile(0) != tile || corridor.entrance(0) != entrance) corridor.reverse();
+        if (corridor.tile(0) != tile || corridor.entrance(0) != entrance) {
+            // the board was changed behind the index.
+            invalidate();
+            return null;
+        }
+        remove(slot);
+        int last = corridor.size() - 1;
+        MazeTile end = corridor.tile(last);
+        remove(find(MazeBoard.key(end.getX(), end.getY()), corridor.exit(last)));
+        return corridor;
+    }
+
+    /**
+     * Get the exit of the previous tile leading to the entrance.
+     */
+    int opposite(int entrance) {
+        return topology.opposite(entrance);
+    }
+
+    private void join(LineTile tile, int a, int b) {
+        int left = neighbour(tile, a);
+        Corridor l = left < 0 ? null : corridors[left];
+        if (left >= 0) remove(left);
+        int right = neighbour(tile, b);
+        Corridor r = right < 0 ? null : corridors[right];
+        if (right >= 0) remove(right);
+        long key = MazeBoard.key(tile.getX(), tile.getY());
+        if (l == null && r == null) {
+            Corridor corridor = new Corridor();
+            corridor.addLast(tile, a);
+            put(key, a, corridor);
+            put(key, b, corridor);
+            return;
+        }
+        if (l == r) {
+            // the path closes a loop, which no path can enter any more: its ends are gone.
+            return;
+        }
+        if (l == null) {
+            attach(r, tile, b, a);
+            put(key, a, r);
+            return;
+        }
+        attach(l, tile, a, b);
+        if (r == null) {
+            put(key, b, l);
+            return;
+        }
+        // l ends with the tile, r starts at the neighbour across b.
+        if (l.tile(0) == tile && l.entrance(0) == b) l.reverse();
+        if (r.tile(0).getX() != tile.getX() + topology.dx(b) || r.tile(0).getY() != tile.getY() + topology.dy(b)
+                || r.entrance(0) != topology.opposite(b)) {
+            r.reverse();
+        }
+        if (l.size() >= r.size()) {
+            for (int i = 0, n = r.size(); i < n; i++) l.addLast(r.tile(i), r.entrance(i));
+            int last = l.size() - 1;
+            replace(MazeBoard.key(l.tile(last).getX(), l.tile(last).getY()), l.exit(last), l);
+        } else {
+            for (int i = l.size() - 1; i >= 0; i--) r.addFirst(l.tile(i), l.entrance(i));
+            replace(MazeBoard.key(r.tile(0).getX(), r.tile(0).getY()), r.entrance(0), r);
+        }
+    }
+
+    /**
+     * Add the tile to the end of the corridor facing the exit.
+     */
+    private void attach(Corridor corridor, MazeTile tile, int entrance, int exit) {
+        int last = corridor.size() - 1;
+        MazeTile end = corridor.tile(last);
+        if (end.getX() == tile.getX() + topology.dx(entrance) && end.getY() == tile.getY() + topology.dy(entrance)
+                && corridor.exit(last) == topology.opposite(entrance)) {
+            corridor.addLast(tile, entrance);
+        } else {
+            corridor.addFirst(tile, exit);
+        }
+    }
+
+    /**
+     * Find the end facing the exit of the tile.
+     */
+    private int neighbour(MazeTile tile, int exit) {
+        int x = tile.getX() + topology.dx(exit);
+        int y = tile.getY() + topology.dy(exit);
+        return find(MazeBoard.key(x, y), topology.opposite(exit));
+    }
+
+    private static int hash(long position, int exit) {
+        long h = (position * 31 + exit) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private int find(long position, int exit) {
+        int mask = positions.length - 1;
+        for (int i = hash(position, exit) & mask; exits[i] != 0; i = (i + 1) & mask) {
+            if (positions[i] == position && exits[i] == exit + 1) return i;
+        }
+        return -1;
+    }
+
+    private void put(long position, int exit, Corridor corridor) {
+        if ((size + 1) * 2 > positions.length) grow();
+        int mask = positions.length - 1;
+        int i = hash(position, exit) & mask;
+        while (exits[i] != 0) i = (i + 1) & mask;
+        positions[i] = position;
+        exits[i] = (byte) (exit + 1);
+        corridors[i] = corridor;
+        size++;
+    }
+
+    private void replace(long position, int exit, Corridor corridor) {
+        corridors[find(position, exit)] = corridor;
+    }
+
+    private void remove(int slot) {
+        int mask = positions.length - 1;
+        int i = slot;
+        // shift the following entries back, so the probes need no tombstone.
+        for (int j = (i + 1) & mask; exits[j] != 0; j = (j + 1) & mask) {
+            int home = hash(positions[j], exits[j] - 1) & mask;
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                positions[i] = positions[j];
+                exits[i] = exits[j];
+                corridors[i] = corridors[j];
+                i = j;
+            }
+        }
+        exits[i] = 0;
+        corridors[i] = null;
+        size--;
+    }
+
+    private void grow() {
+        long[] oldPositions = positions;
+        byte[] oldExits = exits;
+        Corridor[] oldCorridors = corridors;
+        positions = new long[oldPositions.length * 2];
+        exits = new byte[oldPositions.length * 2];
+        corridors = new Corridor[oldPositions.length * 2];
+        size = 0;
+        for (int i = 0; i < oldPositions.length; i++) {
+            if (oldExits[i] != 0) put(oldPositions[i], oldExits[i] - 1, oldCorridors[i]);
+        }
+    }
+
+    /**
+     * The tiles of a corridor in order, each with the exit the corridor enters it by.
+     * <p>The tiles are kept in a deque grown at both ends, and the order is reversed by a flag, the entrance of a
+     * reversed tile being the exit of its path.</p>
+     */
+    static final class Corridor {
+
+        private MazeTile[] tiles = new MazeTile[4];
+        private byte[] entrances = new byte[4];
+        private int head = 2;
+        private int tail = 2;
+        private boolean reversed;
+
+        int size() {
+            return tail - head;
+        }
+
+        MazeTile tile(int i) {
+            return tiles[reversed ? tail - 1 - i : head + i];
+        }
+
+        /**
+         * Get the exit the path enters the tile by.
+         */
+        int entrance(int i) {
+            int j = reversed ? tail - 1 - i : head + i;
+            return reversed ? tiles[j].exitOf(entrances[j]) : entrances[j];
+        }
+
+        /**
+         * Get the exit the path leaves the tile by.
+         */
+        int exit(int i) {
+            int j = reversed ? tail - 1 - i : head + i;
+            return reversed ? entrances[j] : tiles[j].exitOf(entrances[j]);
+        }
+
+        void reverse() {
+            reversed = !reversed;
+        }
+
+        void addLast(MazeTile tile, int entrance) {
+            if (reversed) prepend(tile, tile.exitOf(entrance));
+            else append(tile, entrance);
+        }
+
+        void addFirst(MazeTile tile, int entrance) {
+            if (reversed) append(tile, tile.exitOf(entrance));
+            else prepend(tile, entrance);
+        }
+
+        private void append(MazeTile tile, int entrance) {
+            if (tail == tiles.length) resize();
+            tiles[tail] = tile;
+            entrances[tail++] = (byte) entrance;
+        }
+
+        private void prepend(MazeTile tile, int entrance) {
+            if (head == 0) resize();
+            tiles[--head] = tile;
+            entrances[head] = (byte) entrance;
+        }
+
+        private void resize() {
+            int size = size();
+            int capacity = Math.max(8, size * 2);
+            int start = (capacity - size) / 2;
+            MazeTile[] newTiles = new MazeTile[capacity];
+            byte[] newEntrances = new byte[capacity];
+            System.arraycopy(tiles, head, newTiles, start, size);
+            System.arraycopy(entrances, head, newEntrances, start, size);
+            tiles = newTiles;
+            entrances = newEntrances;
+            head = start;
+            tail = start + size;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.ziq.linemaze;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The start tile of any {@link Topology}: it has no path, so the path coming back to it ends the game.
+ *
+ * @author ziq
+ */
+public class StartTile implements MazeTile, Serializable {
+
+    private int x;
+    private int y;
+
+    @Override
+    public void rotate() {
+    }
+
+    @Override
+    public int getRotation() {
+        return 0;
+    }
+
+    @Override
+    public int accessPath(int entrance) {
+        return NO_EXIT;
+    }
+
+    @Override
+    public boolean isPathAccessed(int entrance) {
+        return true;
+    }
+
+    @Override
+    public Iterator<Path> getPathIterator() {
+        return Collections.<Path>emptyIterator();
+    }
+
+    @Override
+    public void forEachPath(PathVisitor visitor) {
+    }
+
+    @Override
+    public int exitOf(int entrance) {
+        return NO_EXIT;
+    }
+
+    @Override
+    public List<Integer> getPosition() {
+        return Arrays.asList(x, y);
+    }
+
+    public void setPosition(List<Integer> position) {
+        setPosition(position.get(0), position.get(1));
+    }
+
+    public void setPosition(int x, int y) {
+        this.x = x;
+        this.y = y;
+    }
+
+    @Override
+    public int getX() {
+        return x;
+    }
+
+    @Override
+    public int getY() {
+        return y;
+    }
+}
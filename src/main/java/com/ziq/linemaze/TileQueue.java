@@ -0,0 +1,93 @@
+package com.ziq.linemaze;
+
+/**
+ * The window of the tile types drawn ahead from the source of a model.
+ * <p>Each entry keeps the type and the state of the source after drawing it, so dequeuing a type advances the
+ * source of the model exactly as drawing it would: the games stay the same with or without the queue. The entries
+ * are a pure function of the state of the source, so the queue is valid as long as the source is at the state it
+ * was built from, and it simply starts over when the source was moved by an undo, a redo or a restored snapshot.</p>
+ *
+ * @author ziq
+ */
+final class TileQueue {
+
+    private final TileSource lookahead = new TileSource(0);
+    private final int[] types;
+    private final long[] states;
+    private int head;
+    private int size;
+    private int count;
+
+    /**
+     * The state of the source at the head of the queue.
+     */
+    private long base;
+
+    TileQueue(int window) {
+        this.types = new int[window];
+        this.states = new long[window];
+    }
+
+    int getWindow() {
+        return types.length;
+    }
+
+    /**
+     * Take the next type, advancing the source past it.
+     */
+    int next(TileSource source, int count) {
+        sync(source, count);
+        if (size == 0) generate(1);
+        int type = types[head];
+        base = states[head];
+        head = (head + 1) % types.length;
+        size--;
+        source.setState(base);
+        return type;
+    }
+
+    /**
+     * Get an upcoming type without taking it.
+     */
+    int peek(TileSource source, int count, int index) {
+        sync(source, count);
+        if (index >= size) generate(index + 1 - size);
+        return types[(head + index) % types.length];
+    }
+
+    /**
+     * Draw the types ahead to fill the window.
+     */
+    void fill(TileSource source, int count) {
+        sync(source, count);
+        generate(types.length - size);
+    }
+
+    /**
+     * Get the count of the types drawn, 0 before the first draw.
+     */
+    int getCount() {
+        return count;
+    }
+
+    private void sync(TileSource source, int count) {
+        if (count != this.count || source.getState() != base) {
+            this.count = count;
+            base = source.getState();
+            head = 0;
+            size = 0;
+        }
+    }
+
+    private void generate(int n) {
+        if (n <= 0) return;
+        int window = types.length;
+        lookahead.setState(size == 0 ? base : states[(head + size - 1) % window]);
+        for (int i = 0; i < n; i++) {
+            int tail = (head + size) % window;
+            types[tail] = lookahead.nextInt(count);
+            states[tail] = lookahead.getState();
+            size++;
+        }
+    }
+}
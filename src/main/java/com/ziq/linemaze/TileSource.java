@@ -0,0 +1,111 @@
+package com.ziq.linemaze;
+
+import java.io.Serializable;
+
+/**
+ * The seeded, splittable random source the tiles are drawn from.
+ * <p>It implements the SplitMix64 generator: the whole state is a single long, so the source is cheap to create
+ * per model, to split for parallel workers and to save along with the model. Two sources with the same seed
+ * produce the same sequence, which makes any game replayable from its seed.</p>
+ *
+ * @author ziq
+ */
+public class TileSource implements Serializable {
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private long seed;
+    private long state;
+
+    /**
+     * Construct the source.
+     *
+     * @param seed the seed.
+     */
+    public TileSource(long seed) {
+        reset(seed);
+    }
+
+    /**
+     * Mix the bits of the value, the finalizer of SplitMix64.
+     *
+     * @param z the value.
+     * @return the mixed value.
+     */
+    public static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Restart the sequence from the given seed.
+     *
+     * @param seed the seed.
+     */
+    public void reset(long seed) {
+        this.seed = seed;
+        this.state = seed;
+    }
+
+    /**
+     * Get the next random long.
+     *
+     * @return the random long.
+     */
+    public long nextLong() {
+        return mix64(state += GOLDEN_GAMMA);
+    }
+
+    /**
+     * Get the next random int in [0, bound).
+     *
+     * @param bound the upper bound, exclusive.
+     * @return the random int.
+     */
+    public int nextInt(int bound) {
+        int r = (int) (nextLong() >>> 33);
+        int m = bound - 1;
+        if ((bound & m) == 0) {
+            return r & m;
+        }
+        for (int u = r; u - (r = u % bound) + m < 0; u = (int) (nextLong() >>> 33)) ;
+        return r;
+    }
+
+    /**
+     * Split off an independent source, for example for a parallel worker.
+     *
+     * @return the new source.
+     */
+    public TileSource split() {
+        return new TileSource(mix64(nextLong()));
+    }
+
+    /**
+     * Get the seed the current sequence started from.
+     *
+     * @return the seed.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Get the position in the sequence, for saving the source.
+     *
+     * @return the state.
+     */
+    public long getState() {
+        return state;
+    }
+
+    /**
+     * Restore the position in the sequence obtained from {@link #getState()}.
+     *
+     * @param state the state.
+     */
+    public void setState(long state) {
+        this.state = state;
+    }
+}
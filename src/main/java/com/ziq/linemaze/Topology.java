@@ -0,0 +1,398 @@
+package com.ziq.linemaze;
+
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The shape of the tiles of a board and how they connect, as lookup tables.
+ * <p>A tile has {@link #EXITS_PER_SIDE} exits per side, numbered clockwise from the first exit of side 0, and a
+ * rotation step turns it by one side. The path leaving a tile by an exit enters the neighbour at the offset of the
+ * side of the exit by the opposite exit. The wirings are the perfect matchings of the exits, enumerated once per
+ * topology and shared by all the tiles: 105 for the {@link #SQUARE} tiles and 10395 for the {@link #HEX} tiles.</p>
+ * <p>The state of a tile is packed into an int: the accessed mask in the low {@link #getExits()} bits, then the
+ * rotation, then the type id. The square layout is the one of the rectangle tiles.</p>
+ *
+ * @author ziq
+ */
+public final class Topology implements Serializable {
+
+    /**
+     * The number of exits on each side of a tile.
+     */
+    public static final int EXITS_PER_SIDE = 2;
+
+    /**
+     * The square tiles, sides up, right, down and left: 8 exits and quarter turns.
+     */
+    public static final Topology SQUARE = new Topology("square", new int[][]{
+            {0, -1}, {1, 0}, {0, 1}, {-1, 0}
+    });
+
+    /**
+     * The flat-topped hexagonal tiles in axial coordinates (q, r), sides north, north-east, south-east, south,
+     * south-west and north-west: 12 exits and sixth turns.
+     */
+    public static final Topology HEX = new Topology("hex", new int[][]{
+            {0, -1}, {1, -1}, {1, 0}, {0, 1}, {-1, 1}, {-1, 0}
+    });
+
+    private final String name;
+    private final int sides;
+    private final int exits;
+    private final int[] dx;
+    private final int[] dy;
+    private final int[] opposite;
+
+    /**
+     * The entrance in tile coordinates indexed by [rotation * exits + entrance in board coordinates].
+     */
+    private final int[] local;
+
+    private final int rotationShift;
+    private final int rotationMask;
+    private final int typeShift;
+
+    private transient volatile Wirings wirings;
+
+    /**
+     * Construct the topology.
+     *
+     * @param name  the name of the topology.
+     * @param sides the offset (dx, dy) of the neighbour beyond each side, clockwise, the opposite sides being half a
+     *              turn apart.
+     * @throws IllegalArgumentException if the sides are not opposed in pairs or the state does not fit an int.
+     */
+    public Topology(String name, int[][] sides) {
+        this.name = name;
+        this.sides = sides.length;
+        this.exits = this.sides * EXITS_PER_SIDE;
+        if (this.sides < 2 || this.sides % 2 != 0) {
+            throw new IllegalArgumentException("Illegal number of sides: " + this.sides);
+        }
+        int half = this.sides / 2;
+        for (int s = 0; s < half; s++) {
+            if (sides[s][0] != -sides[s + half][0] || sides[s][1] != -sides[s + half][1]) {
+                throw new IllegalArgumentException("The side " + s + " is not opposed to the side " + (s + half));
+            }
+        }
+        int rotationBits = 32 - Integer.numberOfLeadingZeros(this.sides - 1);
+        this.rotationShift = exits;
+        this.rotationMask = (1 << rotationBits) - 1;
+        this.typeShift = exits + rotationBits;
+        if (typeShift + 64 - Long.numberOfLeadingZeros(countWirings(exits) - 1) > 31) {
+            throw new IllegalArgumentException("Too many exits: " + exits);
+        }
+
+        dx = new int[exits];
+        dy = new int[exits];
+        opposite = new int[exits];
+        for (int e = 0; e < exits; e++) {
+            int side = e / EXITS_PER_SIDE;
+            dx[e] = sides[side][0];
+            dy[e] = sides[side][1];
+            // the exits run clockwise on both sides, so they meet mirrored.
+            opposite[e] = ((side + half) % this.sides) * EXITS_PER_SIDE + EXITS_PER_SIDE - 1 - e % EXITS_PER_SIDE;
+        }
+        local = new int[this.sides * exits];
+        for (int r = 0; r < this.sides; r++) {
+            for (int e = 0; e < exits; e++) {
+                local[r * exits + e] = (e - r * EXITS_PER_SIDE + exits) % exits;
+            }
+        }
+    }
+
+    private static long countWirings(int exits) {
+        long count = 1;
+        for (int i = exits - 1; i > 1; i -= 2) {
+            count *= i;
+        }
+        return count;
+    }
+
+    private Object readResolve() throws ObjectStreamException {
+        if (SQUARE.name.equals(name) && SQUARE.exits == exits) return SQUARE;
+        if (HEX.name.equals(name) && HEX.exits == exits) return HEX;
+        return this;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getSides() {
+        return sides;
+    }
+
+    /**
+     * Get the number of exits of a tile.
+     *
+     * @return the number of exits.
+     */
+    public int getExits() {
+        return exits;
+    }
+
+    /**
+     * Get the number of distinct rotations of a tile, one per side.
+     *
+     * @return the number of rotations.
+     */
+    public int getRotations() {
+        return sides;
+    }
+
+    /**
+     * Get the number of exits a rotation step shifts.
+     *
+     * @return the number of exits.
+     */
+    public int getRotationStep() {
+        return EXITS_PER_SIDE;
+    }
+
+    /**
+     * Get the x offset of the neighbour beyond the exit.
+     *
+     * @param exit the exit in board coordinates.
+     * @return the x offset.
+     */
+    public int dx(int exit) {
+        return dx[exit];
+    }
+
+    /**
+     * Get the y offset of the neighbour beyond the exit.
+     *
+     * @param exit the exit in board coordinates.
+     * @return the y offset.
+     */
+    public int dy(int exit) {
+        return dy[exit];
+    }
+
+    /**
+     * Get the entrance of the neighbour reached by the exit.
+     *
+     * @param exit the exit in board coordinates.
+     * @return the entrance of the neighbour in board coordinates.
+     */
+    public int opposite(int exit) {
+        return opposite[exit];
+    }
+
+    /**
+     * Convert the entrance in board coordinates into tile coordinates.
+     *
+     * @param rotation the rotation in steps.
+     * @param entrance the entrance in board coordinates.
+     * @return the entrance in tile coordinates.
+     */
+    public int local(int rotation, int entrance) {
+        return local[rotation * exits + entrance];
+    }
+
+    /**
+     * Get the number of wirings, that is of tile types.
+     *
+     * @return the number of types.
+     */
+    public int getTypeCount() {
+        return wirings().count;
+    }
+
+    /**
+     * Get the exit connected to the exit, both in tile coordinates.
+     *
+     * @param type the type id.
+     * @param exit the exit in tile coordinates.
+     * @return the connected exit in tile coordinates.
+     */
+    public int pair(int type, int exit) {
+        return wirings().pairs[type * exits + exit];
+    }
+
+    /**
+     * Get the exit connected to the entrance.
+     *
+     * @param type     the type id.
+     * @param rotation the rotation in steps.
+     * @param entrance the entrance in board coordinates.
+     * @return the exit in board coordinates.
+     */
+    public int exit(int type, int rotation, int entrance) {
+        return wirings().exits[(type * sides + rotation) * exits + entrance];
+    }
+
+    /**
+     * Get the type whose unrotated wiring equals the type at the rotation, that is the wiring in board coordinates.
+     *
+     * @param type     the type id.
+     * @param rotation the rotation in steps.
+     * @return the type id.
+     */
+    public int rotated(int type, int rotation) {
+        return wirings().rotated[type * sides + rotation];
+    }
+
+    /**
+     * Find the type with the given wiring.
+     *
+     * @param pairs the connected exit of each exit, in tile coordinates.
+     * @return the type id, or -1 if the wiring does not pair up the exits.
+     */
+    public int typeOf(int[] pairs) {
+        if (pairs.length != exits) return -1;
+        Integer type = wirings().ids.get(encode(pairs));
+        return type == null ? -1 : type;
+    }
+
+    /**
+     * Check whether the packed state is the one of a tile: a known type and rotation, and the accessed exits paired
+     * up by the wiring of the type.
+     *
+     * @param packed the packed state.
+     * @return true if valid.
+     */
+    public boolean isValid(int packed) {
+        int type = type(packed);
+        if (type >= getTypeCount() || rotation(packed) >= sides) return false;
+        int accessed = accessed(packed);
+        for (int exit = 0; exit < exits; exit++) {
+            if ((accessed & (1 << exit)) != 0 && (accessed & (1 << pair(type, exit))) == 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Get the type id of the packed state.
+     *
+     * @param packed the packed state of a tile.
+     * @return the type id.
+     */
+    public int type(int packed) {
+        return packed >>> typeShift;
+    }
+
+    /**
+     * Get the rotation of the packed state.
+     *
+     * @param packed the packed state of a tile.
+     * @return the rotation in steps.
+     */
+    public int rotation(int packed) {
+        return (packed >>> rotationShift) & rotationMask;
+    }
+
+    /**
+     * Get the accessed mask of the packed state.
+     *
+     * @param packed the packed state of a tile.
+     * @return the accessed mask in tile coordinates.
+     */
+    public int accessed(int packed) {
+        return packed & ((1 << exits) - 1);
+    }
+
+    /**
+     * Pack the state of a tile.
+     *
+     * @param type     the type id.
+     * @param rotation the rotation in steps.
+     * @param accessed the accessed mask in tile coordinates.
+     * @return the packed state.
+     */
+    public int pack(int type, int rotation, int accessed) {
+        return (type << typeShift) | (rotation << rotationShift) | accessed;
+    }
+
+    private Wirings wirings() {
+        Wirings wirings = this.wirings;
+        if (wirings == null) {
+            synchronized (this) {
+                wirings = this.wirings;
+                if (wirings == null) {
+                    this.wirings = wirings = new Wirings(this);
+                }
+            }
+        }
+        return wirings;
+    }
+
+    private static long encode(int[] pairs) {
+        long key = 0;
+        for (int pair : pairs) {
+            key = (key << 4) | pair;
+        }
+        return key;
+    }
+
+    @Override
+    public String toString() {
+        return "Topology{" +
+                "name='" + name + '\'' +
+                ", exits=" + exits +
+                '}';
+    }
+
+    /**
+     * The tables of the wirings, built on first use.
+     */
+    private static final class Wirings {
+        final int count;
+        final byte[] pairs;
+        final byte[] exits;
+        final int[] rotated;
+        final Map<Long, Integer> ids;
+
+        Wirings(Topology topology) {
+            int n = topology.exits;
+            int rotations = topology.sides;
+            count = (int) countWirings(n);
+            pairs = new byte[count * n];
+            enumerate(new int[n], 0, n, new int[1]);
+            ids = new HashMap<Long, Integer>(count * 2);
+            int[] wiring = new int[n];
+            for (int t = 0; t < count; t++) {
+                for (int e = 0; e < n; e++) {
+                    wiring[e] = pairs[t * n + e];
+                }
+                ids.put(encode(wiring), t);
+            }
+
+            exits = new byte[count * rotations * n];
+            rotated = new int[count * rotations];
+            for (int t = 0; t < count; t++) {
+                for (int r = 0; r < rotations; r++) {
+                    int base = (t * rotations + r) * n;
+                    for (int e = 0; e < n; e++) {
+                        int exit = (pairs[t * n + topology.local(r, e)] + r * EXITS_PER_SIDE) % n;
+                        exits[base + e] = (byte) exit;
+                        wiring[e] = exit;
+                    }
+                    // a rotated wiring is a wiring too.
+                    rotated[t * rotations + r] = ids.get(encode(wiring));
+                }
+            }
+        }
+
+        private void enumerate(int[] wiring, int used, int n, int[] next) {
+            int first = Integer.numberOfTrailingZeros(~used);
+            if (first >= n) {
+                int t = next[0]++;
+                for (int e = 0; e < n; e++) {
+                    pairs[t * n + e] = (byte) wiring[e];
+                }
+                return;
+            }
+            for (int other = first + 1; other < n; other++) {
+                if ((used & (1 << other)) == 0) {
+                    wiring[first] = other;
+                    wiring[other] = first;
+                    enumerate(wiring, used | (1 << first) | (1 << other), n, next);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.ziq.linemaze.flow;
+
+import com.ziq.linemaze.MazeTile;
+
+/**
+ * The immutable event of a model, published by a {@link MazeEventPublisher}, safe to read from any thread.
+ * <p>The tile of an event is copied as its position and packed state, since the tiles of a model change.</p>
+ *
+ * @author ziq
+ */
+public final class MazeEvent {
+
+    /**
+     * The type of the events.
+     */
+    public enum Type {
+        /**
+         * A new game started, the new value is the game seed.
+         */
+        INIT,
+        /**
+         * The state changed, from the old value to the new value.
+         */
+        STATE,
+        /**
+         * The current tile changed to the tile of the event, if any.
+         */
+        TILE,
+        /**
+         * The number of path nodes changed, from the old value to the new value.
+         */
+        PATH_NODES,
+        /**
+         * The score changed, from the old value to the new value.
+         */
+        SCORE,
+        /**
+         * The current tile, the tile of the event, was rotated.
+         */
+        ROTATE,
+        /**
+         * A move was done: the old value is the number of tiles traversed, the new value the number of path nodes
+         * gained, and the state the state after the move.
+         */
+        MOVE,
+        /**
+         * A move was taken back.
+         */
+        UNDO,
+        /**
+         * A move was played again.
+         */
+        REDO,
+        /**
+         * A batch of commands was applied, after its consolidated events: the old value is the number of commands
+         * applied, the new value the number of path nodes gained, and the state the state after the batch.
+         */
+        BATCH,
+        /**
+         * The subscriber fell behind and missed events: the event holds the latest state, path nodes, score and
+         * current tile instead.
+         */
+        SNAPSHOT
+    }
+
+    private final Type type;
+    private final long oldValue;
+    private final long newValue;
+    private final boolean hasTile;
+    private final int tileX;
+    private final int tileY;
+    private final int packedState;
+    private final int state;
+    private final int pathNodes;
+    private final long score;
+
+    MazeEvent(Type type, long oldValue, long newValue, boolean hasTile, int tileX, int tileY, int packedState,
+              int state, int pathNodes, long score) {
+        this.type = type;
+        this.oldValue = oldValue;
+        this.newValue = newValue;
+        this.hasTile = hasTile;
+        this.tileX = tileX;
+        this.tileY = tileY;
+        this.packedState = packedState;
+        this.state = state;
+        this.pathNodes = pathNodes;
+        this.score = score;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public long getOldValue() {
+        return oldValue;
+    }
+
+    public long getNewValue() {
+        return newValue;
+    }
+
+    /**
+     * Get whether the event holds a tile.
+     *
+     * @return true for the {@link Type#TILE}, {@link Type#ROTATE} and {@link Type#SNAPSHOT} events of a tile.
+     */
+    public boolean hasTile() {
+        return hasTile;
+    }
+
+    public int getTileX() {
+        return tileX;
+    }
+
+    public int getTileY() {
+        return tileY;
+    }
+
+    /**
+     * Get the packed state of the tile, see {@link MazeTile#getPackedState()}.
+     *
+     * @return the packed state.
+     */
+    public int getPackedState() {
+        return packedState;
+    }
+
+    /**
+     * Get the state of the model after a {@link Type#MOVE}, or the latest state of a {@link Type#SNAPSHOT}.
+     *
+     * @return the state, one of the {@code MazeModel.STATE_*} constants.
+     */
+    public int getState() {
+        return state;
+    }
+
+    /**
+     * Get the latest number of path nodes of a {@link Type#SNAPSHOT}.
+     *
+     * @return the number of path nodes.
+     */
+    public int getPathNodes() {
+        return pathNodes;
+    }
+
+    /**
+     * Get the latest score of a {@link Type#SNAPSHOT}.
+     *
+     * @return the score.
+     */
+    public long getScore() {
+        return score;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("MazeEvent{").append(type);
+        switch (type) {
+            case BATCH:
+                sb.append(", applied=").append(oldValue).append(", nodes=").append(newValue)
+                        .append(", state=").append(state);
+                break;
+            case MOVE:
+                sb.append(", traversed=").append(oldValue).append(", nodes=").append(newValue)
+                        .append(", state=").append(state);
+                break;
+            case SNAPSHOT:
+                sb.append(", state=").append(state).append(", pathNodes=").append(pathNodes)
+                        .append(", score=").append(score);
+                break;
+            case INIT:
+                sb.append(", seed=").append(newValue);
+                break;
+            case UNDO:
+            case REDO:
+            case TILE:
+            case ROTATE:
+                break;
+            default:
+                sb.append(", ").append(oldValue).append(" -> ").append(newValue);
+        }
+        if (hasTile) sb.append(", tile=(").append(tileX).append(", ").append(tileY).append(")");
+        return sb.append('}').toString();
+    }
+}
@@ -0,0 +1,486 @@
+package com.ziq.linemaze.flow;
+
+import com.ziq.linemaze.MazeListener;
+import com.ziq.linemaze.MazeModel;
+import com.ziq.linemaze.MazeTile;
+import com.ziq.linemaze.MoveBatch;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The {@link Flow.Publisher} of the events of a model, for the observers which must not slow the game down.
+ * <p>The publisher is a {@link MazeListener} added to the model. On the game thread, an event is written into the
+ * ring buffer of every subscriber, a few primitive stores without any lock nor allocation, and the delivery thread of
+ * the publisher is woken up if it sleeps. The delivery thread creates the {@link MazeEvent}s and signals the
+ * subscribers, one at a time, as far as they requested.</p>
+ * <p>A subscriber whose buffer is full misses the following events: once its buffer is drained, it receives one
+ * {@link MazeEvent.Type#SNAPSHOT} event with the latest state, path nodes, score and current tile, then the events
+ * again. So a slow subscriber costs a bounded buffer and never a growing queue. The snapshot is at least as recent
+ * as the events missed, the events following it may repeat some of its values.</p>
+ * <p>The model notifies its listeners from the thread driving it, so the publisher expects one game thread at a time,
+ * as the model does.</p>
+ *
+ * @author ziq
+ */
+public class MazeEventPublisher implements Flow.Publisher<MazeEvent>, MazeListener, AutoCloseable {
+
+    /**
+     * The default number of events buffered for a subscriber.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 64;
+
+    /**
+     * The largest number of events delivered to a subscriber before serving the others.
+     */
+    private static final int BATCH = 16;
+
+    private static final Subscription[] NO_SUBSCRIPTIONS = new Subscription[0];
+
+    private static final MazeEvent.Type[] TYPES = MazeEvent.Type.values();
+
+    private final int bufferSize;
+    private volatile Subscription[] subscriptions = NO_SUBSCRIPTIONS;
+    private volatile boolean closed;
+
+    /**
+     * The delivery thread, started by the first subscriber.
+     */
+    private volatile Thread thread;
+    private volatile boolean idle;
+
+    /**
+     * The latest values of the model, written by the game thread under the sequence lock {@link #version}.
+     */
+    private volatile int version;
+    private int state;
+    private int pathNodes;
+    private long score;
+    private boolean hasTile;
+    private int tileX;
+    private int tileY;
+    private int packedState;
+
+    /**
+     * Construct the publisher with the default buffer size.
+     */
+    public MazeEventPublisher() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Construct the publisher.
+     *
+     * @param bufferSize the number of events buffered for a subscriber, rounded up to a power of two.
+     */
+    public MazeEventPublisher(int bufferSize) {
+        if (bufferSize < 1 || bufferSize > 1 << 20) {
+            throw new IllegalArgumentException("Illegal buffer size: " + bufferSize);
+        }
+        int size = 1;
+        while (size < bufferSize) size <<= 1;
+        this.bufferSize = size;
+    }
+
+    /**
+     * Add the publisher to the listeners of the model, starting from its current values.
+     *
+     * @param model the model.
+     */
+    public void attach(MazeModel model) {
+        update(model.getState(), model.getPathNodes(), model.getScore(), model.getCurrentTile(), true);
+        model.addMazeListener(this);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super MazeEvent> subscriber) {
+        if (subscriber == null) throw new NullPointerException();
+        Subscription subscription = new Subscription(subscriber, bufferSize);
+        synchronized (this) {
+            Subscription[] current = subscriptions;
+            for (Subscription s : current) {
+                if (s.subscriber == subscriber) {
+                    subscription.error = new IllegalStateException("Duplicate subscribe.");
+                }
+            }
+            Subscription[] next = new Subscription[current.length + 1];
+            System.arraycopy(current, 0, next, 0, current.length);
+            next[current.length] = subscription;
+            subscriptions = next;
+            if (thread == null) {
+                thread = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        deliver();
+                    }
+                }, "maze-events");
+                thread.setDaemon(true);
+                thread.start();
+            }
+        }
+        wake();
+    }
+
+    /**
+     * Get the number of the current subscribers.
+     *
+     * @return the number of subscribers.
+     */
+    public int getSubscriberCount() {
+        return subscriptions.length;
+    }
+
+    /**
+     * Stop publishing. Every subscriber completes once it received the events already buffered.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        wake();
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void onInit(long gameSeed) {
+        publish(MazeEvent.Type.INIT, 0, gameSeed, null);
+    }
+
+    @Override
+    public void onStateChanged(int oldState, int newState) {
+        update(newState, pathNodes, score, null, false);
+        publish(MazeEvent.Type.STATE, oldState, newState, null);
+    }
+
+    @Override
+    public void onTileChanged(MazeTile oldTile, MazeTile newTile) {
+        update(state, pathNodes, score, newTile, true);
+        publish(MazeEvent.Type.TILE, 0, 0, newTile);
+    }
+
+    @Override
+    public void onPathNodesChanged(int oldNodes, int newNodes) {
+        update(state, newNodes, score, null, false);
+        publish(MazeEvent.Type.PATH_NODES, oldNodes, newNodes, null);
+    }
+
+    @Override
+    public void onScoreChanged(long oldScore, long newScore) {
+        update(state, pathNodes, newScore, null, false);
+        publish(MazeEvent.Type.SCORE, oldScore, newScore, null);
+    }
+
+    @Override
+    public void onRotate(MazeTile tile) {
+        update(state, pathNodes, score, tile, true);
+        publish(MazeEvent.Type.ROTATE, 0, 0, tile);
+    }
+
+    @Override
+    public void onMove(int traversed, int nodes, int state) {
+        publish(MazeEvent.Type.MOVE, traversed, nodes, null, state);
+    }
+
+    @Override
+    public void onBatch(MoveBatch batch) {
+        publish(MazeEvent.Type.BATCH, batch.getApplied(), batch.getPathNodeDelta(), null, batch.getState());
+    }
+
+    @Override
+    public void onUndo() {
+        publish(MazeEvent.Type.UNDO, 0, 0, null);
+    }
+
+    @Override
+    public void onRedo() {
+        publish(MazeEvent.Type.REDO, 0, 0, null);
+    }
+
+    /**
+     * Write the latest values, on the game thread.
+     */
+    private void update(int state, int pathNodes, long score, MazeTile tile, boolean tileChanged) {
+        int v = version;
+        version = v + 1;
+        VarHandle.storeStoreFence();
+        this.state = state;
+        this.pathNodes = pathNodes;
+        this.score = score;
+        if (tileChanged) {
+            hasTile = tile != null;
+            tileX = tile == null ? 0 : tile.getX();
+            tileY = tile == null ? 0 : tile.getY();
+            packedState = tile == null ? 0 : tile.getPackedState();
+        }
+        version = v + 2;
+    }
+
+    /**
+     * Read the latest values, on the delivery thread.
+     */
+    private MazeEvent snapshot() {
+        while (true) {
+            int v = version;
+            int state = this.state;
+            int pathNodes = this.pathNodes;
+            long score = this.score;
+            boolean hasTile = this.hasTile;
+            int tileX = this.tileX;
+            int tileY = this.tileY;
+            int packedState = this.packedState;
+            VarHandle.loadLoadFence();
+            if ((v & 1) == 0 && v == version) {
+                return new MazeEvent(MazeEvent.Type.SNAPSHOT, 0, 0, hasTile, tileX, tileY, packedState, state,
+                        pathNodes, score);
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private void publish(MazeEvent.Type type, long oldValue, long newValue, MazeTile tile) {
+        publish(type, oldValue, newValue, tile, 0);
+    }
+
+    private void publish(MazeEvent.Type type, long oldValue, long newValue, MazeTile tile, int state) {
+        if (closed) return;
+        Subscription[] subscriptions = this.subscriptions;
+        if (subscriptions.length == 0) return;
+        int x = tile == null ? 0 : tile.getX();
+        int y = tile == null ? 0 : tile.getY();
+        int packed = tile == null ? 0 : tile.getPackedState();
+        int kind = type.ordinal() | (tile == null ? 0 : Subscription.HAS_TILE);
+        for (Subscription s : subscriptions) {
+            s.offer(kind, oldValue, newValue, x, y, packed, state);
+        }
+        if (idle) wake();
+    }
+
+    private void wake() {
+        Thread thread = this.thread;
+        if (thread != null) LockSupport.unpark(thread);
+    }
+
+    private synchronized void remove(Subscription subscription) {
+        Subscription[] current = subscriptions;
+        int n = current.length;
+        for (int i = 0; i < n; i++) {
+            if (current[i] == subscription) {
+                Subscription[] next = n == 1 ? NO_SUBSCRIPTIONS : new Subscription[n - 1];
+                System.arraycopy(current, 0, next, 0, i);
+                System.arraycopy(current, i + 1, next, i, n - i - 1);
+                subscriptions = next;
+                return;
+            }
+        }
+    }
+
+    /**
+     * The loop of the delivery thread.
+     */
+    private void deliver() {
+        while (true) {
+            boolean worked = false;
+            for (Subscription s : subscriptions) {
+                worked |= s.drain();
+            }
+            if (worked) continue;
+            idle = true;
+            if (!hasWork()) {
+                if (closed && subscriptions.length == 0) {
+                    synchronized (this) {
+                        // a late subscriber restarts the thread.
+                        if (subscriptions.length == 0) {
+                            thread = null;
+                            idle = false;
+                            return;
+                        }
+                    }
+                }
+                LockSupport.park(this);
+            }
+            idle = false;
+        }
+    }
+
+    private boolean hasWork() {
+        for (Subscription s : subscriptions) {
+            if (s.isReady()) return true;
+        }
+        return false;
+    }
+
+    /**
+     * The subscription, holding the ring buffer of the subscriber.
+     * <p>The game thread is the only writer of the records and of {@link #published}, the delivery thread the only
+     * writer of {@link #consumed}, so the buffer needs no lock.</p>
+     */
+    private final class Subscription implements Flow.Subscription {
+
+        static final int HAS_TILE = 0x100;
+
+        final Flow.Subscriber<? super MazeEvent> subscriber;
+        final int mask;
+        final int[] kinds;
+        final long[] oldValues;
+        final long[] newValues;
+        final int[] tileXs;
+        final int[] tileYs;
+        final int[] packedStates;
+        final int[] states;
+
+        volatile long published;
+        volatile long consumed;
+        /**
+         * Whether events were missed, set by the game thread, cleared by the delivery thread before the snapshot.
+         */
+        volatile boolean lagging;
+        volatile boolean cancelled;
+        final AtomicLong demand = new AtomicLong();
+
+        /**
+         * The signals, on the delivery thread only.
+         */
+        boolean subscribed;
+        boolean done;
+        Throwable error;
+
+        Subscription(Flow.Subscriber<? super MazeEvent> subscriber, int size) {
+            this.subscriber = subscriber;
+            this.mask = size - 1;
+            this.kinds = new int[size];
+            this.oldValues = new long[size];
+            this.newValues = new long[size];
+            this.tileXs = new int[size];
+            this.tileYs = new int[size];
+            this.packedStates = new int[size];
+            this.states = new int[size];
+        }
+
+        void offer(int kind, long oldValue, long newValue, int x, int y, int packed, int state) {
+            if (lagging || cancelled) return;
+            long p = published;
+            if (p - consumed > mask) {
+                lagging = true;
+                return;
+            }
+            int i = (int) p & mask;
+            kinds[i] = kind;
+            oldValues[i] = oldValue;
+            newValues[i] = newValue;
+            tileXs[i] = x;
+            tileYs[i] = y;
+            packedStates[i] = packed;
+            states[i] = state;
+            published = p + 1;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                error = new IllegalArgumentException("Non-positive request: " + n);
+                cancelled = true;
+            } else {
+                long d;
+                do {
+                    d = demand.get();
+                } while (!demand.compareAndSet(d, d + n < 0 ? Long.MAX_VALUE : d + n));
+            }
+            wake();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            wake();
+        }
+
+        boolean isReady() {
+            if (!subscribed || cancelled) return true;
+            boolean pending = consumed < published || lagging;
+            return pending ? demand.get() > 0 : closed;
+        }
+
+        /**
+         * Deliver a batch of events.
+         *
+         * @return true if anything was signalled.
+         */
+        boolean drain() {
+            if (done) return false;
+            try {
+                if (!subscribed) {
+                    subscribed = true;
+                    subscriber.onSubscribe(this);
+                    if (error != null) finish();
+                    return true;
+                }
+                if (cancelled) {
+                    finish();
+                    return true;
+                }
+                int count = 0;
+                while (count < BATCH && demand.get() > 0 && !cancelled) {
+                    MazeEvent event;
+                    long c = consumed;
+                    if (c < published) {
+                        event = read((int) c & mask);
+                        consumed = c + 1;
+                    } else if (lagging) {
+                        // the snapshot follows the clearing, so it covers every missed event.
+                        lagging = false;
+                        event = snapshot();
+                    } else {
+                        break;
+                    }
+                    demand.decrementAndGet();
+                    count++;
+                    subscriber.onNext(event);
+                }
+                if (!cancelled && closed && consumed == published && !lagging) {
+                    finish();
+                    return true;
+                }
+                return count > 0;
+            } catch (Throwable ex) {
+                // the subscriber broke the contract, it is cancelled.
+                cancelled = true;
+                if (error == null) error = ex;
+                finish();
+                return true;
+            }
+        }
+
+        private MazeEvent read(int i) {
+            int kind = kinds[i];
+            return new MazeEvent(TYPES[kind & 0xff], oldValues[i], newValues[i],
+                    (kind & HAS_TILE) != 0, tileXs[i], tileYs[i], packedStates[i], states[i], 0, 0);
+        }
+
+        /**
+         * Remove the subscription, signalling the error or the completion unless cancelled by the subscriber.
+         */
+        private void finish() {
+            done = true;
+            remove(this);
+            Throwable error = this.error;
+            if (error != null) {
+                try {
+                    subscriber.onError(error);
+                } catch (Throwable ignored) {
+                    // nothing left to signal.
+                }
+            } else if (!cancelled) {
+                cancelled = true;
+                try {
+                    subscriber.onComplete();
+                } catch (Throwable ignored) {
+                    // nothing left to signal.
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.ziq.linemaze.hex;
+
+import com.ziq.linemaze.LineMazeModel;
+
+/**
+ * 2D Hexagon Maze, in the style of Entanglement.
+ * <p>The rules of the board are the ones of its {@link HexMazeStrategy}, which is immutable and may be shared by any
+ * number of models of the same radius.</p>
+ *
+ * @author ziq
+ */
+public class HexMazeModel extends LineMazeModel {
+
+    /**
+     * The default radius of the play area.
+     */
+    public static final int DEFAULT_RADIUS = 4;
+
+    /**
+     * Construct the model of the default radius with a random seed.
+     */
+    public HexMazeModel() {
+        super(HexMazeStrategy.DEFAULT);
+    }
+
+    /**
+     * Construct the model.
+     *
+     * @param radius the radius of the play area, at least 1.
+     * @param seed   the seed of the model.
+     */
+    public HexMazeModel(int radius, long seed) {
+        super(new HexMazeStrategy(radius), seed);
+    }
+
+    /**
+     * Construct the model playing the strategy, which may be shared by any number of models.
+     *
+     * @param strategy the strategy.
+     * @param seed     the seed of the model.
+     */
+    public HexMazeModel(HexMazeStrategy strategy, long seed) {
+        super(strategy, seed);
+    }
+
+    @Override
+    public HexMazeStrategy getStrategy() {
+        return (HexMazeStrategy) super.getStrategy();
+    }
+
+    public int getRadius() {
+        return getStrategy().getRadius();
+    }
+}
@@ -0,0 +1,82 @@
+package com.ziq.linemaze.hex;
+
+import com.ziq.linemaze.LineMazeStrategy;
+import com.ziq.linemaze.LineTile;
+import com.ziq.linemaze.MazeBoard;
+import com.ziq.linemaze.Topology;
+
+/**
+ * 2D Hexagon Maze strategy, in the style of Entanglement.
+ * <p>The play area is the hexagon of the given radius around the start tile at (0, 0), in the axial coordinates of
+ * {@link Topology#HEX}: the cells (q, r) with max(|q|, |r|, |q + r|) &lt;= radius. The tiles have 12 exits, so 10395
+ * wirings, and rotate by sixth turns. The first tile is placed north of the start tile.</p>
+ *
+ * @author ziq
+ */
+public class HexMazeStrategy extends LineMazeStrategy {
+
+    /**
+     * The strategy of the default radius.
+     */
+    public static final HexMazeStrategy DEFAULT = new HexMazeStrategy(HexMazeModel.DEFAULT_RADIUS);
+
+    private final int radius;
+
+    /**
+     * Construct the strategy.
+     *
+     * @param radius the radius of the play area, at least 1.
+     */
+    public HexMazeStrategy(int radius) {
+        super(Topology.HEX);
+        if (radius < 1) {
+            throw new IllegalArgumentException("Illegal radius: " + radius);
+        }
+        this.radius = radius;
+    }
+
+    @Override
+    public MazeBoard createBoard() {
+        return createBoard(-radius, -radius, radius * 2 + 1, radius * 2 + 1);
+    }
+
+    @Override
+    public boolean contains(int q, int r) {
+        return Math.abs(q) <= radius && Math.abs(r) <= radius && Math.abs(q + r) <= radius;
+    }
+
+    @Override
+    public int getStartX() {
+        return 0;
+    }
+
+    @Override
+    public int getStartY() {
+        return 0;
+    }
+
+    @Override
+    protected int getStartExit() {
+        // the second exit of the north side.
+        return 1;
+    }
+
+    @Override
+    protected LineTile createLineTile(int type) {
+        return new HexTile(type);
+    }
+
+    public int getRadius() {
+        return radius;
+    }
+
+    /**
+     * Map a deserialized copy of the default strategy back to the shared instance.
+     *
+     * @return the shared strategy, or this strategy.
+     */
+    protected Object readResolve() {
+        HexMazeStrategy d = DEFAULT;
+        return d != null && radius == d.radius ? d : this;
+    }
+}
@@ -0,0 +1,26 @@
+package com.ziq.linemaze.hex;
+
+import com.ziq.linemaze.LineTile;
+import com.ziq.linemaze.Topology;
+
+/**
+ * The hexagon tile: a {@link LineTile} of the {@link Topology#HEX} topology.
+ *
+ * @author ziq
+ */
+public class HexTile extends LineTile {
+
+    /**
+     * Construct the tile.
+     *
+     * @param type the type id, in [0, 10395).
+     */
+    public HexTile(int type) {
+        super(type);
+    }
+
+    @Override
+    public final Topology getTopology() {
+        return Topology.HEX;
+    }
+}
@@ -0,0 +1,314 @@
+package com.ziq.linemaze.host;
+
+import com.ziq.linemaze.MazeModel;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The session actor owning one model.
+ * <p>The commands are queued in a bounded mailbox and run by the shard of the session, one at a time, so the model is
+ * only ever touched by a single thread at a time and needs no locking. The session is scheduled on its shard only
+ * while its mailbox is not empty, so an idle session costs no thread, and once passivated no model either: the model
+ * is serialized and deflated to the {@link SessionStore}, and read back on the next command, then set up by the
+ * configurer of the host.</p>
+ *
+ * @author ziq
+ */
+final class GameSession implements Runnable {
+
+    /**
+     * The number of commands run before the shard is yielded to the other sessions.
+     */
+    private static final int BATCH = 16;
+
+    /**
+     * The deflater of the shard thread, whose native state is costly to create.
+     */
+    private static final ThreadLocal<Deflater> DEFLATER = new ThreadLocal<Deflater>() {
+        @Override
+        protected Deflater initialValue() {
+            return new Deflater(Deflater.BEST_SPEED);
+        }
+    };
+
+    private final SessionHost host;
+    private final long id;
+
+    /**
+     * The model, confined to the shard, null while passivated or not yet created.
+     */
+    private MazeModel model;
+
+    /**
+     * Whether the model is in memory, read by the sweeper.
+     */
+    private volatile boolean resident;
+
+    // guarded by this
+    private ArrayDeque<Envelope> mailbox;
+    private boolean scheduled;
+    private boolean passivating;
+    private boolean closing;
+    private long lastAccess;
+
+    GameSession(SessionHost host, long id) {
+        this.host = host;
+        this.id = id;
+        this.lastAccess = System.nanoTime();
+    }
+
+    long getId() {
+        return id;
+    }
+
+    boolean isResident() {
+        return resident;
+    }
+
+    /**
+     * Queue a command.
+     *
+     * @param command the command.
+     * @return the future state of the session after the command.
+     */
+    CompletableFuture<SessionState> submit(SessionCommand command) {
+        CompletableFuture<SessionState> reply = new CompletableFuture<SessionState>();
+        boolean dispatch;
+        synchronized (this) {
+            if (closing) {
+                reply.completeExceptionally(new IllegalStateException("Session closed: " + id));
+                return reply;
+            }
+            if (mailbox == null) {
+                mailbox = new ArrayDeque<Envelope>(4);
+            } else if (mailbox.size() >= host.getMailboxCapacity()) {
+                reply.completeExceptionally(new RejectedExecutionException("Session mailbox full: " + id));
+                return reply;
+            }
+            mailbox.add(new Envelope(command, reply));
+            lastAccess = System.nanoTime();
+            dispatch = !scheduled;
+            scheduled = true;
+        }
+        if (dispatch) host.dispatch(this);
+        return reply;
+    }
+
+    /**
+     * Request the passivation of the session if it has been idle for the timeout.
+     *
+     * @param now         the current nano time.
+     * @param idleTimeout the idle timeout in nanos.
+     * @return true if the passivation was scheduled.
+     */
+    boolean requestPassivation(long now, long idleTimeout) {
+        if (!resident) return false;
+        synchronized (this) {
+            if (scheduled || closing || now - lastAccess < idleTimeout) return false;
+            passivating = true;
+            scheduled = true;
+        }
+        host.dispatch(this);
+        return true;
+    }
+
+    /**
+     * Request the session to close, failing the commands still queued.
+     */
+    void close() {
+        boolean dispatch;
+        synchronized (this) {
+            if (closing) return;
+            closing = true;
+            dispatch = !scheduled;
+            scheduled = true;
+        }
+        if (dispatch) host.dispatch(this);
+    }
+
+    /**
+     * Fail the queued commands, the host being shut down.
+     */
+    void reject() {
+        ArrayDeque<Envelope> pending;
+        synchronized (this) {
+            pending = mailbox;
+            mailbox = null;
+            scheduled = false;
+            passivating = false;
+        }
+        if (pending == null) return;
+        for (Envelope envelope : pending) {
+            envelope.reply.completeExceptionally(new RejectedExecutionException("Host shut down"));
+        }
+    }
+
+    @Override
+    public void run() {
+        // the shards no longer take the sessions back once shut down, the mailbox is drained in this turn.
+        for (int i = 0; i < BATCH || host.isShutdown(); i++) {
+            Envelope envelope;
+            boolean passivate = false;
+            boolean close;
+            ArrayDeque<Envelope> pending = null;
+            synchronized (this) {
+                close = closing;
+                if (close) {
+                    pending = mailbox;
+                    mailbox = null;
+                    envelope = null;
+                } else {
+                    envelope = mailbox == null ? null : mailbox.poll();
+                    if (envelope == null) {
+                        // only passivate when no command came in after the request.
+                        passivate = passivating && System.nanoTime() - lastAccess >= host.getIdleTimeout();
+                        passivating = false;
+                        if (!passivate) {
+                            // the mailbox is released with the session idle.
+                            mailbox = null;
+                            scheduled = false;
+                            return;
+                        }
+                    }
+                }
+            }
+            if (close) {
+                closeNow(pending);
+                return;
+            }
+            if (envelope != null) {
+                execute(envelope);
+            } else {
+                passivate();
+            }
+        }
+        // more work to do, yield to the other sessions of the shard.
+        host.dispatch(this);
+    }
+
+    private void execute(Envelope envelope) {
+        try {
+            MazeModel model = activate();
+            switch (envelope.command) {
+                case INIT:
+                    model.initModel();
+                    break;
+                case ROTATE:
+                    model.rotate();
+                    break;
+                case NEXT:
+                    model.next();
+                    break;
+                case UNDO:
+                    checkHistory(model);
+                    model.undo();
+                    break;
+                case REDO:
+                    checkHistory(model);
+                    model.redo();
+                    break;
+                case QUERY:
+                    break;
+            }
+            envelope.reply.complete(new SessionState(id, model));
+        } catch (Throwable ex) {
+            envelope.reply.completeExceptionally(ex);
+        }
+    }
+
+    /**
+     * Check that the model records its moves, which it does not after a passivation unless configured again.
+     */
+    private void checkHistory(MazeModel model) {
+        if (model.getHistory() == null) {
+            throw new UnsupportedOperationException("No move history in session " + id);
+        }
+    }
+
+    /**
+     * Get the model, reading it back from the store or creating it if needed.
+     *
+     * @return the model.
+     */
+    private MazeModel activate() throws IOException, ClassNotFoundException {
+        if (model == null) {
+            SessionStore store = host.getStore();
+            byte[] bytes = store.load(id);
+            if (bytes == null) {
+                model = host.createModel(id);
+                model.initModel();
+            } else {
+                ObjectInputStream in = new ObjectInputStream(new InflaterInputStream(new ByteArrayInputStream(bytes)));
+                try {
+                    model = (MazeModel) in.readObject();
+                } finally {
+                    in.close();
+                }
+                host.configure(model);
+                store.remove(id);
+            }
+            resident = true;
+            host.residentChanged(1);
+        }
+        return model;
+    }
+
+    private void passivate() {
+        if (model == null) return;
+        try {
+            // the class descriptors make most of a small model, they compress well.
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+            Deflater deflater = DEFLATER.get();
+            deflater.reset();
+            ObjectOutputStream out = new ObjectOutputStream(new DeflaterOutputStream(bytes, deflater));
+            try {
+                out.writeObject(model);
+            } finally {
+                out.close();
+            }
+            host.getStore().save(id, bytes.toByteArray());
+        } catch (IOException ex) {
+            // keep the model in memory, it is retried on the next sweep.
+            return;
+        }
+        model = null;
+        resident = false;
+        host.residentChanged(-1);
+    }
+
+    private void closeNow(ArrayDeque<Envelope> pending) {
+        if (pending != null) {
+            for (Envelope envelope : pending) {
+                envelope.reply.completeExceptionally(new IllegalStateException("Session closed: " + id));
+            }
+        }
+        if (model != null) {
+            model = null;
+            resident = false;
+            host.residentChanged(-1);
+        }
+        host.getStore().remove(id);
+        host.closed(this);
+    }
+
+    private static final class Envelope {
+
+        final SessionCommand command;
+        final CompletableFuture<SessionState> reply;
+
+        Envelope(SessionCommand command, CompletableFuture<SessionState> reply) {
+            this.command = command;
+            this.reply = reply;
+        }
+    }
+}
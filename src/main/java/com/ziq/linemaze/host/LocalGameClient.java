@@ -0,0 +1,195 @@
+package com.ziq.linemaze.host;
+
+import com.ziq.linemaze.MazeModel;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * The in-process client of a {@link SessionHost}, driving it for the load tests.
+ * <p>Each session of a run plays a random number of rotations followed by a move, with a single command in flight
+ * per session, starting a new game when one ends, until its moves are spent. The sessions run concurrently, so the
+ * host sees as many outstanding commands as there are sessions.</p>
+ *
+ * @author ziq
+ */
+public class LocalGameClient {
+
+    private final SessionHost host;
+
+    public LocalGameClient(SessionHost host) {
+        this.host = host;
+    }
+
+    public SessionHost getHost() {
+        return host;
+    }
+
+    /**
+     * Open sessions and create their models.
+     *
+     * @param count the number of sessions.
+     * @return the session ids.
+     */
+    public long[] open(int count) {
+        long[] ids = new long[count];
+        CompletableFuture<?>[] replies = new CompletableFuture<?>[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = host.open();
+            replies[i] = host.submit(ids[i], SessionCommand.QUERY);
+        }
+        CompletableFuture.allOf(replies).join();
+        return ids;
+    }
+
+    public CompletableFuture<SessionState> rotate(long sessionId) {
+        return host.submit(sessionId, SessionCommand.ROTATE);
+    }
+
+    public CompletableFuture<SessionState> next(long sessionId) {
+        return host.submit(sessionId, SessionCommand.NEXT);
+    }
+
+    /**
+     * Play moves on the open sessions and wait for all of them.
+     *
+     * @param ids   the session ids.
+     * @param moves the number of moves per session.
+     * @param seed  the seed of the rotations.
+     * @return the {@link Report} of the run.
+     */
+    public Report play(long[] ids, int moves, long seed) {
+        AtomicLong commands = new AtomicLong();
+        AtomicLong games = new AtomicLong();
+        long start = System.nanoTime();
+        CompletableFuture<?>[] runs = new CompletableFuture<?>[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            Player player = new Player(ids[i], moves, new SplittableRandom(seed + ids[i]), commands, games);
+            runs[i] = player.move();
+        }
+        CompletableFuture.allOf(runs).join();
+        return new Report(ids.length, commands.get(), games.get(), System.nanoTime() - start);
+    }
+
+    /**
+     * Open sessions, play moves on them and wait for all of them.
+     *
+     * @param sessions the number of sessions.
+     * @param moves    the number of moves per session.
+     * @param seed     the seed of the rotations.
+     * @return the {@link Report} of the run.
+     */
+    public Report run(int sessions, int moves, long seed) {
+        return play(open(sessions), moves, seed);
+    }
+
+    /**
+     * The player of one session, sending a command only when the previous one is done.
+     */
+    private final class Player implements Function<SessionState, CompletableFuture<SessionState>> {
+
+        private final long id;
+        private final SplittableRandom random;
+        private final AtomicLong commands;
+        private final AtomicLong games;
+        private int moves;
+
+        /**
+         * The rotations left before the move, or -1 while a new game is started.
+         */
+        private int rotations;
+
+        Player(long id, int moves, SplittableRandom random, AtomicLong commands, AtomicLong games) {
+            this.id = id;
+            this.moves = moves;
+            this.random = random;
+            this.commands = commands;
+            this.games = games;
+        }
+
+        CompletableFuture<SessionState> move() {
+            rotations = random.nextInt(4);
+            return send(rotations > 0 ? SessionCommand.ROTATE : SessionCommand.NEXT);
+        }
+
+        private CompletableFuture<SessionState> send(SessionCommand command) {
+            commands.incrementAndGet();
+            return host.submit(id, command).thenCompose(this);
+        }
+
+        @Override
+        public CompletableFuture<SessionState> apply(SessionState state) {
+            if (rotations < 0) {
+                // a new game was started.
+                return move();
+            }
+            if (rotations > 0) {
+                rotations--;
+                return send(rotations > 0 ? SessionCommand.ROTATE : SessionCommand.NEXT);
+            }
+            if (state.getState() == MazeModel.STATE_END) games.incrementAndGet();
+            if (--moves <= 0) return CompletableFuture.completedFuture(state);
+            if (state.getState() == MazeModel.STATE_END) {
+                rotations = -1;
+                return send(SessionCommand.INIT);
+            }
+            return move();
+        }
+    }
+
+    /**
+     * The report of a run.
+     */
+    public static final class Report {
+
+        private final int sessions;
+        private final long commands;
+        private final long games;
+        private final long elapsedNanos;
+
+        Report(int sessions, long commands, long games, long elapsedNanos) {
+            this.sessions = sessions;
+            this.commands = commands;
+            this.games = games;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public int getSessions() {
+            return sessions;
+        }
+
+        public long getCommands() {
+            return commands;
+        }
+
+        /**
+         * Get the number of games ended during the run.
+         *
+         * @return the number of games.
+         */
+        public long getGames() {
+            return games;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public double getCommandsPerSecond() {
+            return elapsedNanos == 0 ? 0 : commands * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "Report{" +
+                    "sessions=" + sessions +
+                    ", commands=" + commands +
+                    ", games=" + games +
+                    ", elapsedNanos=" + elapsedNanos +
+                    ", commandsPerSecond=" + (long) getCommandsPerSecond() +
+                    '}';
+        }
+    }
+}
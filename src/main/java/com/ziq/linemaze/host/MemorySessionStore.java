@@ -0,0 +1,38 @@
+package com.ziq.linemaze.host;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The session store keeping the passivated sessions in memory, as compact serialized bytes.
+ *
+ * @author ziq
+ */
+public class MemorySessionStore implements SessionStore {
+
+    private final ConcurrentMap<Long, byte[]> models = new ConcurrentHashMap<Long, byte[]>();
+
+    @Override
+    public void save(long sessionId, byte[] model) {
+        models.put(sessionId, model);
+    }
+
+    @Override
+    public byte[] load(long sessionId) {
+        return models.get(sessionId);
+    }
+
+    @Override
+    public void remove(long sessionId) {
+        models.remove(sessionId);
+    }
+
+    /**
+     * Get the number of the stored sessions.
+     *
+     * @return the number of sessions.
+     */
+    public int size() {
+        return models.size();
+    }
+}
@@ -0,0 +1,43 @@
+package com.ziq.linemaze.host;
+
+import com.ziq.linemaze.MazeModel;
+
+/**
+ * The commands a session accepts.
+ *
+ * @author ziq
+ */
+public enum SessionCommand {
+
+    /**
+     * Start a new game, see {@link MazeModel#initModel()}.
+     */
+    INIT,
+
+    /**
+     * Rotate the current tile, see {@link MazeModel#rotate()}.
+     */
+    ROTATE,
+
+    /**
+     * Fix the current tile and follow the path, see {@link MazeModel#next()}.
+     */
+    NEXT,
+
+    /**
+     * Take back the last move, see {@link MazeModel#undo()}.
+     * <p>It fails with an {@link UnsupportedOperationException} if the model has no history, as after a passivation
+     * unless the configurer of the host sets one again.</p>
+     */
+    UNDO,
+
+    /**
+     * Play again the last move taken back, see {@link MazeModel#redo()}. It fails as {@link #UNDO} without a history.
+     */
+    REDO,
+
+    /**
+     * Get the state of the game without changing it.
+     */
+    QUERY
+}
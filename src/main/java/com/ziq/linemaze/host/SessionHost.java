@@ -0,0 +1,297 @@
+package com.ziq.linemaze.host;
+
+import com.ziq.linemaze.MazeModel;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+
+/**
+ * The host of many concurrent game sessions in one JVM.
+ * <p>Each session is an actor owning its {@link MazeModel}: the commands are accepted through a bounded mailbox and
+ * run one at a time, so the model, which is not thread-safe, is only touched by a single writer. The sessions are
+ * sharded across a fixed set of single-threaded executors, and scheduled on their shard only while they have work,
+ * so the number of threads does not grow with the number of sessions. A session left idle for the timeout is
+ * passivated: its model is serialized to the {@link SessionStore} and read back on the next command.</p>
+ * <p>The listeners, the move history, the change tracking, the corridor index and the metrics of a model are
+ * transient, so they do not survive the passivation. The configurer of the host sets them again on the model read
+ * back, the moves played before the passivation can then no longer be undone.</p>
+ *
+ * @author ziq
+ */
+public class SessionHost {
+
+    /**
+     * The default capacity of the mailbox of a session.
+     */
+    public static final int DEFAULT_MAILBOX_CAPACITY = 64;
+
+    /**
+     * The default idle timeout before the passivation, in seconds.
+     */
+    public static final long DEFAULT_IDLE_TIMEOUT = 30;
+
+    private final LongFunction<? extends MazeModel> factory;
+    private final Consumer<? super MazeModel> configurer;
+    private final int mailboxCapacity;
+    private final long idleTimeout;
+    private final SessionStore store;
+    private final ExecutorService[] shards;
+    private final ScheduledExecutorService sweeper;
+    private final ConcurrentMap<Long, GameSession> sessions = new ConcurrentHashMap<Long, GameSession>();
+    private final AtomicLong nextId = new AtomicLong();
+    private final AtomicInteger resident = new AtomicInteger();
+    private volatile boolean shutdown;
+
+    /**
+     * Construct the host with one shard per processor, the default mailbox capacity and idle timeout, and the
+     * passivated sessions kept in memory.
+     *
+     * @param factory the factory of the model of a new session, given the session id.
+     */
+    public SessionHost(LongFunction<? extends MazeModel> factory) {
+        this(factory, Runtime.getRuntime().availableProcessors(), DEFAULT_MAILBOX_CAPACITY, DEFAULT_IDLE_TIMEOUT,
+                TimeUnit.SECONDS, new MemorySessionStore());
+    }
+
+    /**
+     * Construct the host.
+     *
+     * @param factory         the factory of the model of a new session, given the session id.
+     * @param shards          the number of shard threads.
+     * @param mailboxCapacity the capacity of the mailbox of a session.
+     * @param idleTimeout     the idle time before the passivation of a session, 0 to never passivate.
+     * @param unit            the unit of the idle timeout.
+     * @param store           the store of the passivated sessions.
+     */
+    public SessionHost(LongFunction<? extends MazeModel> factory, int shards, int mailboxCapacity, long idleTimeout,
+                       TimeUnit unit, SessionStore store) {
+        this(factory, null, shards, mailboxCapacity, idleTimeout, unit, store);
+    }
+
+    /**
+     * Construct the host.
+     *
+     * @param factory         the factory of the model of a new session, given the session id.
+     * @param configurer      the settings of the model read back after a passivation, such as the history, or null.
+     * @param shards          the number of shard threads.
+     * @param mailboxCapacity the capacity of the mailbox of a session.
+     * @param idleTimeout     the idle time before the passivation of a session, 0 to never passivate.
+     * @param unit            the unit of the idle timeout.
+     * @param store           the store of the passivated sessions.
+     */
+    public SessionHost(LongFunction<? extends MazeModel> factory, Consumer<? super MazeModel> configurer, int shards,
+                       int mailboxCapacity, long idleTimeout, TimeUnit unit, SessionStore store) {
+        if (factory == null || store == null) {
+            throw new NullPointerException();
+        }
+        if (shards < 1 || mailboxCapacity < 1 || idleTimeout < 0) {
+            throw new IllegalArgumentException("Illegal host settings: shards=" + shards
+                    + ", mailboxCapacity=" + mailboxCapacity + ", idleTimeout=" + idleTimeout);
+        }
+        this.factory = factory;
+        this.configurer = configurer;
+        this.mailboxCapacity = mailboxCapacity;
+        this.idleTimeout = unit.toNanos(idleTimeout);
+        this.store = store;
+        this.shards = new ExecutorService[shards];
+        for (int i = 0; i < shards; i++) {
+            this.shards[i] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new HostThreadFactory("maze-shard-" + i));
+        }
+        if (this.idleTimeout > 0) {
+            long period = Math.max(this.idleTimeout / 2, TimeUnit.MILLISECONDS.toNanos(1));
+            ScheduledThreadPoolExecutor sweeper = new ScheduledThreadPoolExecutor(1,
+                    new HostThreadFactory("maze-sweeper"));
+            sweeper.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    passivateIdle();
+                }
+            }, period, period, TimeUnit.NANOSECONDS);
+            this.sweeper = sweeper;
+        } else {
+            this.sweeper = null;
+        }
+    }
+
+    /**
+     * Open a new session. The model is created on the first command.
+     *
+     * @return the session id.
+     */
+    public long open() {
+        if (shutdown) throw new RejectedExecutionException("Host shut down");
+        long id = nextId.incrementAndGet();
+        sessions.put(id, new GameSession(this, id));
+        return id;
+    }
+
+    /**
+     * Queue a command for a session.
+     * <p>The returned future fails with a {@link RejectedExecutionException} if the mailbox of the session is full,
+     * with an {@link IllegalArgumentException} if the session is unknown, and with an {@link IllegalStateException}
+     * if it is closing.</p>
+     *
+     * @param sessionId the session id.
+     * @param command   the command.
+     * @return the future state of the session after the command, completed on the shard thread.
+     */
+    public CompletableFuture<SessionState> submit(long sessionId, SessionCommand command) {
+        if (command == null) throw new NullPointerException();
+        GameSession session = sessions.get(sessionId);
+        if (session == null || shutdown) {
+            CompletableFuture<SessionState> reply = new CompletableFuture<SessionState>();
+            reply.completeExceptionally(shutdown ? new RejectedExecutionException("Host shut down")
+                    : new IllegalArgumentException("Unknown session: " + sessionId));
+            return reply;
+        }
+        return session.submit(command);
+    }
+
+    /**
+     * Close a session, failing the commands still queued and dropping its model.
+     *
+     * @param sessionId the session id.
+     * @return true if the session was open.
+     */
+    public boolean close(long sessionId) {
+        GameSession session = sessions.get(sessionId);
+        if (session == null) return false;
+        session.close();
+        return true;
+    }
+
+    /**
+     * Passivate the sessions idle for the timeout. It is called periodically by the host.
+     *
+     * @return the number of sessions scheduled for passivation.
+     */
+    public int passivateIdle() {
+        if (idleTimeout <= 0 || shutdown) return 0;
+        long now = System.nanoTime();
+        int count = 0;
+        for (GameSession session : sessions.values()) {
+            if (session.requestPassivation(now, idleTimeout)) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Get the number of the open sessions.
+     *
+     * @return the number of sessions.
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Get the number of the sessions whose model is in memory.
+     *
+     * @return the number of resident sessions.
+     */
+    public int getResidentCount() {
+        return resident.get();
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    public int getMailboxCapacity() {
+        return mailboxCapacity;
+    }
+
+    /**
+     * Get the idle timeout.
+     *
+     * @return the idle timeout in nanos, 0 if the sessions are never passivated.
+     */
+    public long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public SessionStore getStore() {
+        return store;
+    }
+
+    /**
+     * Shut down the host: the queued commands are run, each session draining its whole mailbox in its last turn, the
+     * later ones are rejected.
+     *
+     * @param timeout the time to wait for the shards.
+     * @param unit    the unit of the timeout.
+     * @return true if the shards terminated in time.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        shutdown = true;
+        if (sweeper != null) sweeper.shutdownNow();
+        for (ExecutorService shard : shards) {
+            shard.shutdown();
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        boolean terminated = true;
+        for (ExecutorService shard : shards) {
+            terminated &= shard.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        }
+        return terminated;
+    }
+
+    MazeModel createModel(long sessionId) {
+        return factory.apply(sessionId);
+    }
+
+    void configure(MazeModel model) {
+        if (configurer != null) configurer.accept(model);
+    }
+
+    boolean isShutdown() {
+        return shutdown;
+    }
+
+    void dispatch(GameSession session) {
+        try {
+            shards[(int) Math.floorMod(session.getId(), (long) shards.length)].execute(session);
+        } catch (RejectedExecutionException ex) {
+            session.reject();
+        }
+    }
+
+    void residentChanged(int delta) {
+        resident.addAndGet(delta);
+    }
+
+    void closed(GameSession session) {
+        sessions.remove(session.getId(), session);
+    }
+
+    private static final class HostThreadFactory implements ThreadFactory {
+
+        private final String name;
+
+        HostThreadFactory(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, name);
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
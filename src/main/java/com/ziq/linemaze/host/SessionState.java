@@ -0,0 +1,92 @@
+package com.ziq.linemaze.host;
+
+import com.ziq.linemaze.MazeModel;
+import com.ziq.linemaze.MazeTile;
+
+/**
+ * The immutable state of a session after a command, safe to read from any thread.
+ *
+ * @author ziq
+ */
+public final class SessionState {
+
+    private final long sessionId;
+    private final int state;
+    private final int pathNodes;
+    private final long score;
+    private final int tileX;
+    private final int tileY;
+    private final int rotation;
+
+    SessionState(long sessionId, MazeModel model) {
+        MazeTile tile = model.getCurrentTile();
+        this.sessionId = sessionId;
+        this.state = model.getState();
+        this.pathNodes = model.getPathNodes();
+        this.score = model.getScore();
+        this.tileX = tile == null ? 0 : tile.getX();
+        this.tileY = tile == null ? 0 : tile.getY();
+        this.rotation = tile == null ? 0 : tile.getRotation();
+    }
+
+    public long getSessionId() {
+        return sessionId;
+    }
+
+    /**
+     * Get the state of the model, one of the {@code MazeModel.STATE_*} constants.
+     *
+     * @return the state.
+     */
+    public int getState() {
+        return state;
+    }
+
+    public int getPathNodes() {
+        return pathNodes;
+    }
+
+    public long getScore() {
+        return score;
+    }
+
+    /**
+     * Get the x coordinate of the current tile.
+     *
+     * @return the x coordinate.
+     */
+    public int getTileX() {
+        return tileX;
+    }
+
+    /**
+     * Get the y coordinate of the current tile.
+     *
+     * @return the y coordinate.
+     */
+    public int getTileY() {
+        return tileY;
+    }
+
+    /**
+     * Get the rotation of the current tile.
+     *
+     * @return the rotation in degrees.
+     */
+    public int getRotation() {
+        return rotation;
+    }
+
+    @Override
+    public String toString() {
+        return "SessionState{" +
+                "sessionId=" + sessionId +
+                ", state=" + state +
+                ", pathNodes=" + pathNodes +
+                ", score=" + score +
+                ", tileX=" + tileX +
+                ", tileY=" + tileY +
+                ", rotation=" + rotation +
+                '}';
+    }
+}
@@ -0,0 +1,34 @@
+package com.ziq.linemaze.host;
+
+/**
+ * The store of the passivated sessions.
+ * <p>The store is called from the shard threads of the {@link SessionHost}, concurrently for different sessions, so
+ * the implementation must be thread-safe.</p>
+ *
+ * @author ziq
+ */
+public interface SessionStore {
+
+    /**
+     * Save the serialized model of the session, replacing the previous one.
+     *
+     * @param sessionId the session id.
+     * @param model     the serialized model.
+     */
+    public void save(long sessionId, byte[] model);
+
+    /**
+     * Load the serialized model of the session.
+     *
+     * @param sessionId the session id.
+     * @return the serialized model, or null if none was saved.
+     */
+    public byte[] load(long sessionId);
+
+    /**
+     * Remove the serialized model of the session.
+     *
+     * @param sessionId the session id.
+     */
+    public void remove(long sessionId);
+}
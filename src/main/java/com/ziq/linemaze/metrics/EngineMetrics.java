@@ -0,0 +1,159 @@
+package com.ziq.linemaze.metrics;
+
+import com.ziq.linemaze.MazeMetrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The metrics of the game engine, in counters and latency histograms.
+ * <p>The metrics are recorded with {@link LongAdder}s, so one instance can be shared by all the models of a JVM,
+ * played on any number of threads, without contention. The durations are in nanos.</p>
+ *
+ * @author ziq
+ */
+public class EngineMetrics implements MazeMetrics {
+
+    private final Histogram next = new Histogram();
+    private final Histogram depth = new Histogram();
+    private final Histogram tiles = new Histogram();
+    private final Histogram rotate = new Histogram();
+    private final Histogram createTile = new Histogram();
+    private final Histogram dispatch = new Histogram();
+    private final LongAdder gamesEnded = new LongAdder();
+    private volatile long started = System.nanoTime();
+
+    @Override
+    public void onNext(long nanos, int depth, int tiles, int state) {
+        this.next.record(nanos);
+        this.depth.record(depth);
+        this.tiles.record(tiles);
+    }
+
+    @Override
+    public void onRotate(long nanos) {
+        rotate.record(nanos);
+    }
+
+    @Override
+    public void onCreateTile(long nanos) {
+        createTile.record(nanos);
+    }
+
+    @Override
+    public void onDispatch(Object listener, long nanos) {
+        dispatch.record(nanos);
+    }
+
+    @Override
+    public void onGameEnded(int pathNodes) {
+        gamesEnded.increment();
+    }
+
+    /**
+     * Get the latencies of the moves, listeners included.
+     *
+     * @return the {@link Histogram} in nanos.
+     */
+    public Histogram getNext() {
+        return next;
+    }
+
+    /**
+     * Get the lengths of the chains walked by the moves.
+     *
+     * @return the {@link Histogram} in path nodes.
+     */
+    public Histogram getDepth() {
+        return depth;
+    }
+
+    /**
+     * Get the numbers of tiles on the board after the moves.
+     *
+     * @return the {@link Histogram} in tiles.
+     */
+    public Histogram getTiles() {
+        return tiles;
+    }
+
+    public Histogram getRotate() {
+        return rotate;
+    }
+
+    public Histogram getCreateTile() {
+        return createTile;
+    }
+
+    /**
+     * Get the latencies of the listener notifications.
+     *
+     * @return the {@link Histogram} in nanos.
+     */
+    public Histogram getDispatch() {
+        return dispatch;
+    }
+
+    public long getGamesEnded() {
+        return gamesEnded.sum();
+    }
+
+    /**
+     * Get the rate of the games ended since the creation or the last reset.
+     *
+     * @return the games per second.
+     */
+    public double getGamesEndedPerSecond() {
+        return rate(gamesEnded.sum());
+    }
+
+    /**
+     * Get the rate of the tiles placed since the creation or the last reset.
+     *
+     * @return the tiles per second.
+     */
+    public double getTilesPlacedPerSecond() {
+        return rate(createTile.getCount());
+    }
+
+    /**
+     * Get the rate of the moves since the creation or the last reset.
+     *
+     * @return the moves per second.
+     */
+    public double getMovesPerSecond() {
+        return rate(next.getCount());
+    }
+
+    private double rate(long count) {
+        long elapsed = System.nanoTime() - started;
+        return elapsed <= 0 ? 0 : count * 1e9 / elapsed;
+    }
+
+    /**
+     * Reset the metrics and the start of the rates.
+     */
+    public void reset() {
+        next.reset();
+        depth.reset();
+        tiles.reset();
+        rotate.reset();
+        createTile.reset();
+        dispatch.reset();
+        gamesEnded.reset();
+        started = System.nanoTime();
+    }
+
+    @Override
+    public String toString() {
+        return "EngineMetrics{" +
+                "next=" + next +
+                ", depth=" + depth +
+                ", tiles=" + tiles +
+                ", rotate=" + rotate +
+                ", createTile=" + createTile +
+                ", dispatch=" + dispatch +
+                ", gamesEnded=" + getGamesEnded() +
+                ", gamesEndedPerSecond=" + (long) getGamesEndedPerSecond() +
+                '}';
+    }
+}
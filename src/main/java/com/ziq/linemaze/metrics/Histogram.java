@@ -0,0 +1,101 @@
+package com.ziq.linemaze.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The concurrent histogram of non-negative values in power of two buckets.
+ * <p>The bucket i counts the values of bit length i, that is in [2^(i-1), 2^i), so a value is recorded with a few
+ * uncontended {@link LongAdder} increments and the percentiles are known within a factor of two, which is enough to
+ * tell a spike from the usual latency.</p>
+ *
+ * @author ziq
+ */
+public final class Histogram {
+
+    private static final int BUCKETS = 64;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public Histogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Record a value, the negative values are recorded as 0.
+     *
+     * @param value the value.
+     */
+    public void record(long value) {
+        if (value < 0) value = 0;
+        buckets[Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value))].increment();
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSum() {
+        return sum.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * Get the upper bound of the bucket of a percentile.
+     *
+     * @param percentile the percentile, in [0, 100].
+     * @return the upper bound of the values below the percentile, at most the maximum.
+     */
+    public long getPercentile(double percentile) {
+        long n = count.sum();
+        if (n == 0) return 0;
+        long rank = (long) Math.ceil(n * Math.max(0, Math.min(100, percentile)) / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets[i].sum();
+            if (seen >= rank) {
+                return Math.min(getMax(), i == 0 ? 0 : (1L << i) - 1);
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Reset the histogram. The values recorded concurrently may be partly kept.
+     */
+    public void reset() {
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+        count.reset();
+        sum.reset();
+        max.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "Histogram{" +
+                "count=" + getCount() +
+                ", mean=" + (long) getMean() +
+                ", p50=" + getPercentile(50) +
+                ", p99=" + getPercentile(99) +
+                ", max=" + getMax() +
+                '}';
+    }
+}
@@ -0,0 +1,80 @@
+package com.ziq.linemaze.metrics;
+
+import com.ziq.linemaze.MazeMetrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The metrics committing a Flight Recorder event for every move longer than a threshold, and forwarding all the
+ * metrics to another sink.
+ * <p>The event is only created for the long moves while a recording enables it, so the usual moves pay a comparison
+ * and the recording shows the spikes with the thread and the time they happened at.</p>
+ *
+ * @author ziq
+ */
+public class JfrMazeMetrics implements MazeMetrics {
+
+    private final MazeMetrics delegate;
+    private final long threshold;
+
+    /**
+     * Construct the metrics.
+     *
+     * @param delegate  the sink the metrics are forwarded to, {@link MazeMetrics#NONE} for none.
+     * @param threshold the duration from which a move is recorded.
+     * @param unit      the unit of the threshold.
+     */
+    public JfrMazeMetrics(MazeMetrics delegate, long threshold, TimeUnit unit) {
+        if (delegate == null) throw new NullPointerException();
+        this.delegate = delegate;
+        this.threshold = unit.toNanos(threshold);
+    }
+
+    public MazeMetrics getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Get the threshold of the long moves.
+     *
+     * @return the threshold in nanos.
+     */
+    public long getThreshold() {
+        return threshold;
+    }
+
+    @Override
+    public void onNext(long nanos, int depth, int tiles, int state) {
+        delegate.onNext(nanos, depth, tiles, state);
+        if (nanos >= threshold) {
+            LongMoveEvent event = new LongMoveEvent();
+            if (event.shouldCommit()) {
+                event.moveDuration = nanos;
+                event.depth = depth;
+                event.tiles = tiles;
+                event.state = state;
+                event.commit();
+            }
+        }
+    }
+
+    @Override
+    public void onRotate(long nanos) {
+        delegate.onRotate(nanos);
+    }
+
+    @Override
+    public void onCreateTile(long nanos) {
+        delegate.onCreateTile(nanos);
+    }
+
+    @Override
+    public void onDispatch(Object listener, long nanos) {
+        delegate.onDispatch(listener, nanos);
+    }
+
+    @Override
+    public void onGameEnded(int pathNodes) {
+        delegate.onGameEnded(pathNodes);
+    }
+}
@@ -0,0 +1,36 @@
+package com.ziq.linemaze.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * The Flight Recorder event of a move longer than the threshold of the {@link JfrMazeMetrics}.
+ *
+ * @author ziq
+ */
+@Name("com.ziq.linemaze.LongMove")
+@Label("Long Move")
+@Category("Line Maze")
+@Description("A call of MazeModel.next() longer than the threshold, listeners included")
+@StackTrace(false)
+final class LongMoveEvent extends jdk.jfr.Event {
+
+    @Label("Move Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    long moveDuration;
+
+    @Label("Depth")
+    @Description("The number of path nodes collected by the move")
+    int depth;
+
+    @Label("Tiles")
+    @Description("The number of tiles on the board after the move")
+    int tiles;
+
+    @Label("State")
+    int state;
+}
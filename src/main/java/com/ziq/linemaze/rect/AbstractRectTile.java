@@ -1,119 +1,87 @@
 package com.ziq.linemaze.rect;
 
-import com.ziq.linemaze.MazeTile;
+import com.ziq.linemaze.LineTile;
+import com.ziq.linemaze.Topology;
 
-import java.io.Serializable;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
 
 /**
  * 2D Rectangle Tile.
+ * <p>The tile is a {@link LineTile} of the {@link Topology#SQUARE} topology, its wiring shared through
+ * {@link LineRectTileType}, so the tile only keeps its position and a packed state made of the type id, the rotation
+ * in quarter turns and the accessed mask in tile coordinates.</p>
  *
  * @author ziq
  */
-public abstract class AbstractRectTile implements MazeTile, Serializable {
+public abstract class AbstractRectTile extends LineTile {
 
-    private List<Integer> position = Arrays.asList(0, 0);
-    private List<Integer> exits = new ArrayList<Integer>(Collections.nCopies(8, 0));
-    private List<Boolean> accessed = new ArrayList<Boolean>(Collections.nCopies(8, false));
-    private int rotation = 0;
+    private static final int ACCESSED_MASK = 0xff;
 
-    @Override
-    public void rotate() {
-        rotation = (rotation + 90) % 360;
-    }
-
-    private Integer tr(int i) {
-        return (i - rotation / 45 + exits.size()) % exits.size();
-    }
-
-    private Integer out(int i) {
-        return (i + rotation / 45) % exits.size();
-    }
-
-    @Override
-    public Integer getExit(Integer entrance) {
-        return out(exits.get(tr(entrance)));
+    protected AbstractRectTile() {
+        super(0);
     }
 
-    @Override
-    public Integer access(Integer entrance) {
-        accessed.set(exits.get(tr(entrance)), true);
-        accessed.set(tr(entrance), true);
-        return getExit(entrance);
+    protected AbstractRectTile(LineRectTileType type) {
+        super(type.getId());
     }
 
     @Override
-    public Boolean isAccessed(Integer entrance) {
-        return accessed.get(tr(entrance));
+    public final Topology getTopology() {
+        return Topology.SQUARE;
     }
 
-    @Override
-    public Iterator<Path> getPathIterator() {
-        return new Iterator<Path>() {
-
-            private boolean[] bits = new boolean[8];
-            private int current = 0;
-
-            @Override
-            public boolean hasNext() {
-                return current < 8 && !bits[current];
-            }
-
-            @Override
-            public Path next() {
-                try {
-                    bits[current] = true;
-                    bits[exits.get(current)] = true;
-                    return new Path(Arrays.asList(current, exits.get(current)), accessed.get(current));
-                } finally {
-                    while ((++current) < 8 && bits[current]) ;
-                }
-
-            }
-
-            @Override
-            public void remove() {
-                throw new UnsupportedOperationException();
-            }
-        };
+    public void setPosition(List<Integer> position) {
+        setPosition(position.get(0), position.get(1));
     }
 
-    @Override
-    public List<Integer> getPosition() {
-        return position;
+    /**
+     * Get the shared wiring of the tile.
+     *
+     * @return the {@link LineRectTileType}.
+     */
+    public LineRectTileType getType() {
+        return LineRectTileType.get(getTypeId());
     }
 
-    public void setPosition(List<Integer> position) {
-        this.position = position;
+    public void setType(LineRectTileType type) {
+        setTypeId(type.getId());
     }
 
+    /**
+     * Get the wiring in tile coordinates.
+     *
+     * @return the unmodifiable list of the connected exit of each exit.
+     */
     public List<Integer> getExits() {
-        return exits;
+        return getType().getPairs();
     }
 
     public void setExits(List<Integer> exits) {
-        this.exits = exits;
+        setType(LineRectTileType.of(exits));
     }
 
+    /**
+     * Get the accessed flags in tile coordinates.
+     *
+     * @return the unmodifiable list of the accessed flag of each exit.
+     */
     public List<Boolean> getAccessed() {
-        return accessed;
+        int packed = getPackedState();
+        Boolean[] list = new Boolean[LineRectTileType.EXITS];
+        for (int i = 0; i < list.length; i++) {
+            list[i] = (packed & (1 << i)) != 0;
+        }
+        return Collections.unmodifiableList(Arrays.asList(list));
     }
 
     public void setAccessed(List<Boolean> accessed) {
-        this.accessed = accessed;
-    }
-
-    @Override
-    public int getRotation() {
-        return rotation;
-    }
-
-    public void setRotation(int rotation) {
-        this.rotation = rotation;
+        int mask = 0;
+        for (int i = 0; i < LineRectTileType.EXITS; i++) {
+            if (accessed.get(i)) mask |= 1 << i;
+        }
+        setPackedState((getPackedState() & ~ACCESSED_MASK) | mask);
     }
 
 }
@@ -3,17 +3,22 @@ package com.ziq.linemaze.rect;
 import com.ziq.linemaze.MazeTile;
 
 import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
 /**
  * The block tile.
+ * <p>{@link RectMazeModel} detects its walls by bounds checks and no longer places block tiles, the class is kept
+ * for the models and the renderers placing explicit obstacles.</p>
  *
  * @author ziq
  */
 public class BlockRectTile implements MazeTile, Serializable {
 
-    private List<Integer> position;
+    private int x;
+    private int y;
     /**
      * The direction of the tile.
      */
@@ -29,31 +34,51 @@ public class BlockRectTile implements MazeTile, Serializable {
     }
 
     @Override
-    public Integer access(Integer entrance) {
-        return null;
+    public int accessPath(int entrance) {
+        return NO_EXIT;
     }
 
     @Override
-    public Boolean isAccessed(Integer entrance) {
+    public boolean isPathAccessed(int entrance) {
         return true;
     }
 
     @Override
     public Iterator<Path> getPathIterator() {
-        return null;
+        return Collections.<Path>emptyIterator();
     }
 
     @Override
-    public Integer getExit(Integer entrance) {
-        return null;
+    public void forEachPath(PathVisitor visitor) {
     }
 
+    @Override
+    public int exitOf(int entrance) {
+        return NO_EXIT;
+    }
+
+    @Override
     public List<Integer> getPosition() {
-        return position;
+        return Arrays.asList(x, y);
     }
 
     public void setPosition(List<Integer> position) {
-        this.position = position;
+        setPosition(position.get(0), position.get(1));
+    }
+
+    public void setPosition(int x, int y) {
+        this.x = x;
+        this.y = y;
+    }
+
+    @Override
+    public int getX() {
+        return x;
+    }
+
+    @Override
+    public int getY() {
+        return y;
     }
 
     public Integer getDirection() {
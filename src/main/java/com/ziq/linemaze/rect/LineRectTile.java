@@ -1,8 +1,6 @@
 package com.ziq.linemaze.rect;
 
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * The regular rectangle tile.
@@ -12,14 +10,19 @@ import java.util.List;
 public class LineRectTile extends AbstractRectTile {
 
     /**
-     * Construct a new {@link LineRectTile} object.
+     * Construct a new {@link LineRectTile} object with a random wiring.
+     * <p>The models draw their tiles from their own seeded source instead, see {@link RectMazeModel}.</p>
      */
     public LineRectTile() {
-        List<Integer> numbers = Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7);
-        Collections.shuffle(numbers);
-        for (int i = 0; i < numbers.size() / 2; i++) {
-            getExits().set(numbers.get(i * 2), numbers.get(i * 2 + 1));
-            getExits().set(numbers.get(i * 2 + 1), numbers.get(i * 2));
-        }
+        this(LineRectTileType.get(ThreadLocalRandom.current().nextInt(LineRectTileType.COUNT)));
+    }
+
+    /**
+     * Construct a new {@link LineRectTile} object with the given wiring.
+     *
+     * @param type the {@link LineRectTileType}.
+     */
+    public LineRectTile(LineRectTileType type) {
+        super(type);
     }
 }
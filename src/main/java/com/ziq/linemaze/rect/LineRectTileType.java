@@ -0,0 +1,183 @@
+package com.ziq.linemaze.rect;
+
+import com.ziq.linemaze.Topology;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The wiring of a {@link LineRectTile}, shared by all the tiles of the same type.
+ * <p>A rectangle tile has 8 exits connected in pairs, so there are exactly 105 wirings (the perfect matchings of 8
+ * exits), the ones of {@link Topology#SQUARE} in the same order. Each keeps a rotation &times; entrance &rarr; exit
+ * lookup table, so a placed tile only needs to remember its type id, its rotation and which of its paths are
+ * accessed.</p>
+ *
+ * @author ziq
+ */
+public final class LineRectTileType {
+
+    /**
+     * The number of exits of a tile.
+     */
+    public static final int EXITS = 8;
+
+    /**
+     * The number of distinct rotations of a tile.
+     */
+    public static final int ROTATIONS = 4;
+
+    /**
+     * The number of the tile types.
+     */
+    public static final int COUNT = 105;
+
+    /**
+     * The entrance in tile coordinates indexed by (rotation, entrance in board coordinates).
+     */
+    private static final byte[] LOCAL = new byte[ROTATIONS * EXITS];
+
+    private static final LineRectTileType[] TYPES = new LineRectTileType[COUNT];
+
+    static {
+        // the wirings are the ones of the square topology, in the same order.
+        Topology square = Topology.SQUARE;
+        for (int r = 0; r < ROTATIONS; r++) {
+            for (int e = 0; e < EXITS; e++) {
+                LOCAL[r * EXITS + e] = (byte) square.local(r, e);
+            }
+        }
+        for (int i = 0; i < COUNT; i++) {
+            TYPES[i] = new LineRectTileType(i, square);
+        }
+    }
+
+    private final int id;
+
+    /**
+     * The connected exit of each exit, in tile coordinates.
+     */
+    private final byte[] pairs;
+
+    /**
+     * The exit indexed by (rotation, entrance), both in board coordinates.
+     */
+    private final byte[] exits = new byte[ROTATIONS * EXITS];
+
+    /**
+     * The id of the type whose wiring equals this one rotated, indexed by rotation.
+     */
+    private final byte[] rotated = new byte[ROTATIONS];
+
+    private LineRectTileType(int id, Topology square) {
+        this.id = id;
+        this.pairs = new byte[EXITS];
+        for (int e = 0; e < EXITS; e++) {
+            pairs[e] = (byte) square.pair(id, e);
+        }
+        for (int r = 0; r < ROTATIONS; r++) {
+            for (int e = 0; e < EXITS; e++) {
+                exits[r * EXITS + e] = (byte) square.exit(id, r, e);
+            }
+            rotated[r] = (byte) square.rotated(id, r);
+        }
+    }
+
+    /**
+     * Get the tile type by id.
+     *
+     * @param id the id of the type, in [0, {@link #COUNT}).
+     * @return the {@link LineRectTileType}.
+     */
+    public static LineRectTileType get(int id) {
+        return TYPES[id];
+    }
+
+    /**
+     * Find the tile type with the given wiring.
+     *
+     * @param pairs the connected exit of each exit, in tile coordinates.
+     * @return the {@link LineRectTileType}.
+     * @throws IllegalArgumentException if the wiring does not pair up the 8 exits.
+     */
+    public static LineRectTileType of(List<Integer> pairs) {
+        if (pairs.size() == EXITS) {
+            for (LineRectTileType type : TYPES) {
+                boolean same = true;
+                for (int i = 0; i < EXITS && same; i++) {
+                    same = type.pairs[i] == pairs.get(i);
+                }
+                if (same) return type;
+            }
+        }
+        throw new IllegalArgumentException("Not a valid wiring: " + pairs);
+    }
+
+    /**
+     * Convert the entrance in board coordinates into tile coordinates.
+     *
+     * @param rotation the rotation in quarter turns.
+     * @param entrance the entrance in board coordinates.
+     * @return the entrance in tile coordinates.
+     */
+    public static int local(int rotation, int entrance) {
+        return LOCAL[(rotation << 3) | entrance];
+    }
+
+    /**
+     * Get the exit connected to the entrance.
+     *
+     * @param rotation the rotation in quarter turns.
+     * @param entrance the entrance in board coordinates.
+     * @return the exit in board coordinates.
+     */
+    public int exit(int rotation, int entrance) {
+        return exits[(rotation << 3) | entrance];
+    }
+
+    /**
+     * Get the type whose unrotated wiring equals this type at the rotation, that is the wiring in board
+     * coordinates.
+     *
+     * @param rotation the rotation in quarter turns.
+     * @return the {@link LineRectTileType}.
+     */
+    public LineRectTileType rotated(int rotation) {
+        return TYPES[rotated[rotation]];
+    }
+
+    /**
+     * Get the exit connected to the exit, both in tile coordinates.
+     *
+     * @param exit the exit in tile coordinates.
+     * @return the connected exit in tile coordinates.
+     */
+    public int pair(int exit) {
+        return pairs[exit];
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Get the wiring as list.
+     *
+     * @return the unmodifiable list of the connected exit of each exit, in tile coordinates.
+     */
+    public List<Integer> getPairs() {
+        Integer[] list = new Integer[EXITS];
+        for (int i = 0; i < EXITS; i++) {
+            list[i] = (int) pairs[i];
+        }
+        return Collections.unmodifiableList(Arrays.asList(list));
+    }
+
+    @Override
+    public String toString() {
+        return "LineRectTileType{" +
+                "id=" + id +
+                ", pairs=" + Arrays.toString(pairs) +
+                '}';
+    }
+}
@@ -0,0 +1,394 @@
+package com.ziq.linemaze.rect;
+
+import com.ziq.linemaze.MazeBoard;
+import com.ziq.linemaze.MazeTile;
+import com.ziq.linemaze.Topology;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * The compact binary snapshot of a {@link RectMazeModel}.
+ * <p>The snapshot is versioned and laid out as follows, big-endian:</p>
+ * <ul>
+ * <li>header: magic (int), version (short), width, height, start x, start y (int), model seed, seed source state,
+ * game seed, tile source state (long), state, path nodes, exit or -1, current x, current y, tile count (int), then
+ * since the version 2 the score and the score of the last move (long), the longest chain and the closed tiles
+ * (int);</li>
+ * <li>one record of {@link #TILE_BYTES} bytes per tile: kind (byte), x, y (int) and the packed state of the tile
+ * (int), which is the type, rotation and accessed mask of a line tile or the direction of a block tile.</li>
+ * </ul>
+ * <p>The tiles are read from and written to the buffer directly, and restoring fills the board and the fields of
+ * the model without firing any listener event. The whole snapshot is decoded and checked before the model is
+ * changed, so a malformed one leaves it as it was.</p>
+ *
+ * @author ziq
+ */
+public final class RectMazeCodec {
+
+    /**
+     * The magic number of the snapshot, "LMZS".
+     */
+    public static final int MAGIC = 0x4c4d5a53;
+
+    /**
+     * The version of the snapshot format.
+     */
+    public static final short VERSION = 2;
+
+    /**
+     * The size of the score in the header in bytes, missing from the version 1.
+     */
+    public static final int SCORE_BYTES = 8 * 2 + 4 * 2;
+
+    /**
+     * The size of the header in bytes.
+     */
+    public static final int HEADER_BYTES = 4 + 2 + 4 * 4 + 8 * 4 + 4 * 6 + SCORE_BYTES;
+
+    /**
+     * The size of a tile record in bytes.
+     */
+    public static final int TILE_BYTES = 1 + 4 + 4 + 4;
+
+    private static final byte KIND_START = 0;
+    private static final byte KIND_LINE = 1;
+    private static final byte KIND_BLOCK = 2;
+
+    private static final int CHANNEL_BUFFER = 64 * 1024;
+
+    private RectMazeCodec() {
+    }
+
+    /**
+     * Get the size of the snapshot of the model.
+     *
+     * @param model the model.
+     * @return the size in bytes.
+     */
+    public static int size(RectMazeModel model) {
+        return HEADER_BYTES + model.getBoard().size() * TILE_BYTES;
+    }
+
+    /**
+     * Write the snapshot of the model.
+     *
+     * @param model  the model.
+     * @param buffer the buffer with at least {@link #size(RectMazeModel)} bytes remaining.
+     */
+    public static void write(RectMazeModel model, ByteBuffer buffer) {
+        writeHeader(model, buffer);
+        for (MazeTile tile : model.getBoard()) {
+            writeTile(tile, buffer);
+        }
+    }
+
+    /**
+     * Write the snapshot of the model to the channel, from its current position.
+     *
+     * @param model   the model.
+     * @param channel the channel.
+     * @throws IOException if the channel fails.
+     */
+    public static void write(RectMazeModel model, FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(CHANNEL_BUFFER);
+        writeHeader(model, buffer);
+        for (MazeTile tile : model.getBoard()) {
+            if (buffer.remaining() < TILE_BYTES) {
+                flush(buffer, channel);
+            }
+            writeTile(tile, buffer);
+        }
+        flush(buffer, channel);
+    }
+
+    private static void flush(ByteBuffer buffer, FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static void writeHeader(RectMazeModel model, ByteBuffer buffer) {
+        MazeTile current = model.getCurrentTile();
+        buffer.putInt(MAGIC);
+        buffer.putShort(VERSION);
+        buffer.putInt(model.getWidth());
+        buffer.putInt(model.getHeight());
+        buffer.putInt(model.getStartX());
+        buffer.putInt(model.getStartY());
+        buffer.putLong(model.getSeed());
+        buffer.putLong(model.seedSource().getState());
+        buffer.putLong(model.tileSource().getSeed());
+        buffer.putLong(model.tileSource().getState());
+        buffer.putInt(model.getState());
+        buffer.putInt(model.getPathNodes());
+        buffer.putInt(model.getExit() == null ? -1 : model.getExit());
+        buffer.putInt(current == null ? Integer.MIN_VALUE : current.getX());
+        buffer.putInt(current == null ? Integer.MIN_VALUE : current.getY());
+        buffer.putInt(model.getBoard().size());
+        buffer.putLong(model.getScore());
+        buffer.putLong(model.getMoveScore());
+        buffer.putInt(model.getLongestChain());
+        buffer.putInt(model.getTilesClosed());
+    }
+
+    private static void writeTile(MazeTile tile, ByteBuffer buffer) {
+        if (tile instanceof AbstractRectTile) {
+            buffer.put(KIND_LINE);
+            buffer.putInt(tile.getX());
+            buffer.putInt(tile.getY());
+            buffer.putInt(((AbstractRectTile) tile).getPackedState());
+        } else if (tile instanceof StartRectTile) {
+            buffer.put(KIND_START);
+            buffer.putInt(tile.getX());
+            buffer.putInt(tile.getY());
+            buffer.putInt(0);
+        } else if (tile instanceof BlockRectTile) {
+            Integer direction = ((BlockRectTile) tile).getDirection();
+            buffer.put(KIND_BLOCK);
+            buffer.putInt(tile.getX());
+            buffer.putInt(tile.getY());
+            buffer.putInt(direction == null ? -1 : direction);
+        } else {
+            throw new IllegalArgumentException("Unsupported tile: " + tile.getClass().getName());
+        }
+    }
+
+    /**
+     * Read the snapshot into a new model.
+     *
+     * @param buffer the buffer positioned at the snapshot.
+     * @return the restored model, without any listener.
+     * @throws IOException if the snapshot is malformed, a {@link StreamCorruptedException} for illegal values.
+     */
+    public static RectMazeModel read(ByteBuffer buffer) throws IOException {
+        Header header = readHeader(buffer, null);
+        RectMazeModel model = header.createModel();
+        readTiles(header, model, buffer, null);
+        return model;
+    }
+
+    /**
+     * Read the snapshot into the existing model of the same area, replacing its game.
+     * <p>The listeners of the model are kept but not notified.</p>
+     *
+     * @param buffer the buffer positioned at the snapshot.
+     * @param model  the model to restore.
+     * @throws IOException if the snapshot is malformed or of another area.
+     */
+    public static void read(ByteBuffer buffer, RectMazeModel model) throws IOException {
+        Header header = readHeader(buffer, null);
+        header.check(model);
+        readTiles(header, model, buffer, null);
+    }
+
+    /**
+     * Read the snapshot from the channel, from its current position, into a new model.
+     * <p>The channel is read ahead by blocks, so its position past the snapshot is unspecified.</p>
+     *
+     * @param channel the channel.
+     * @return the restored model, without any listener.
+     * @throws IOException if the channel fails or the snapshot is malformed.
+     */
+    public static RectMazeModel read(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(CHANNEL_BUFFER);
+        buffer.limit(0);
+        fill(buffer, channel, HEADER_BYTES - SCORE_BYTES);
+        Header header = readHeader(buffer, channel);
+        RectMazeModel model = header.createModel();
+        readTiles(header, model, buffer, channel);
+        return model;
+    }
+
+    /**
+     * Read the snapshot from the channel, from its current position, into the existing model of the same area.
+     *
+     * @param channel the channel.
+     * @param model   the model to restore.
+     * @throws IOException if the channel fails, the snapshot is malformed or of another area.
+     */
+    public static void read(FileChannel channel, RectMazeModel model) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(CHANNEL_BUFFER);
+        buffer.limit(0);
+        fill(buffer, channel, HEADER_BYTES - SCORE_BYTES);
+        Header header = readHeader(buffer, channel);
+        header.check(model);
+        readTiles(header, model, buffer, channel);
+    }
+
+    /**
+     * Make sure the buffer, in read mode, has the bytes remaining, reading more from the channel if needed.
+     */
+    private static void fill(ByteBuffer buffer, FileChannel channel, int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) return;
+        buffer.compact();
+        while (buffer.position() < bytes) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Truncated snapshot.");
+            }
+        }
+        buffer.flip();
+    }
+
+    private static Header readHeader(ByteBuffer buffer, FileChannel channel) throws IOException {
+        if (buffer.remaining() < HEADER_BYTES - SCORE_BYTES) {
+            throw new EOFException("Truncated snapshot.");
+        }
+        if (buffer.getInt() != MAGIC) {
+            throw new StreamCorruptedException("Not a maze snapshot.");
+        }
+        short version = buffer.getShort();
+        if (version != VERSION && version != 1) {
+            throw new StreamCorruptedException("Unsupported snapshot version: " + version);
+        }
+        Header header = new Header();
+        header.width = buffer.getInt();
+        header.height = buffer.getInt();
+        header.startX = buffer.getInt();
+        header.startY = buffer.getInt();
+        header.seed = buffer.getLong();
+        header.seedState = buffer.getLong();
+        header.gameSeed = buffer.getLong();
+        header.tileState = buffer.getLong();
+        header.state = buffer.getInt();
+        header.pathNodes = buffer.getInt();
+        header.exit = buffer.getInt();
+        header.currentX = buffer.getInt();
+        header.currentY = buffer.getInt();
+        header.tiles = buffer.getInt();
+        if (header.tiles < 0) {
+            throw new StreamCorruptedException("Illegal tile count: " + header.tiles);
+        }
+        if (version > 1) {
+            if (channel != null) {
+                fill(buffer, channel, SCORE_BYTES);
+            } else if (buffer.remaining() < SCORE_BYTES) {
+                throw new EOFException("Truncated snapshot.");
+            }
+            header.score = buffer.getLong();
+            header.moveScore = buffer.getLong();
+            header.longestChain = buffer.getInt();
+            header.tilesClosed = buffer.getInt();
+        }
+        return header;
+    }
+
+    private static void readTiles(Header header, RectMazeModel model, ByteBuffer buffer, FileChannel channel)
+            throws IOException {
+        Topology topology = model.getTopology();
+        if (header.exit < -1 || header.exit >= topology.getExits()) {
+            throw new StreamCorruptedException("Illegal exit: " + header.exit);
+        }
+        if (header.tiles > (long) header.width * header.height) {
+            throw new StreamCorruptedException("Illegal tile count: " + header.tiles);
+        }
+        long available = buffer.remaining() + (channel == null ? 0 : channel.size() - channel.position());
+        if ((long) header.tiles * TILE_BYTES > available) {
+            throw new EOFException("Truncated snapshot.");
+        }
+        // decoded and checked before the board is touched.
+        MazeTile[] tiles = new MazeTile[header.tiles];
+        MazeTile current = null;
+        for (int i = 0; i < header.tiles; i++) {
+            if (channel != null) {
+                fill(buffer, channel, TILE_BYTES);
+            } else if (buffer.remaining() < TILE_BYTES) {
+                throw new EOFException("Truncated snapshot.");
+            }
+            byte kind = buffer.get();
+            int x = buffer.getInt();
+            int y = buffer.getInt();
+            int packed = buffer.getInt();
+            if (!model.contains(x, y)) {
+                throw new StreamCorruptedException("Tile out of the area: (" + x + ", " + y + ")");
+            }
+            MazeTile tile;
+            switch (kind) {
+                case KIND_LINE:
+                    if (!topology.isValid(packed)) {
+                        throw new StreamCorruptedException("Illegal tile state: " + Integer.toHexString(packed));
+                    }
+                    LineRectTile line = new LineRectTile(LineRectTileType.get(0));
+                    line.setPackedState(packed);
+                    line.setPosition(x, y);
+                    tile = line;
+                    break;
+                case KIND_START:
+                    StartRectTile start = new StartRectTile();
+                    start.setPosition(x, y);
+                    tile = start;
+                    break;
+                case KIND_BLOCK:
+                    if (packed < -1 || packed >= topology.getSides()) {
+                        throw new StreamCorruptedException("Illegal block direction: " + packed);
+                    }
+                    BlockRectTile block = new BlockRectTile();
+                    block.setPosition(x, y);
+                    block.setDirection(packed < 0 ? null : packed);
+                    tile = block;
+                    break;
+                default:
+                    throw new StreamCorruptedException("Unknown tile kind: " + kind);
+            }
+            if (x == header.currentX && y == header.currentY) current = tile;
+            tiles[i] = tile;
+        }
+        if (current == null && header.currentX != Integer.MIN_VALUE) {
+            throw new StreamCorruptedException("Missing current tile: (" + header.currentX + ", " + header.currentY
+                    + ")");
+        }
+
+        MazeBoard board = model.getBoard();
+        board.clear();
+        for (MazeTile tile : tiles) {
+            board.put(tile.getX(), tile.getY(), tile);
+        }
+        model.seedSource().reset(header.seed);
+        model.seedSource().setState(header.seedState);
+        model.tileSource().reset(header.gameSeed);
+        model.tileSource().setState(header.tileState);
+        model.restore(header.state, current, header.pathNodes, header.exit < 0 ? null : header.exit,
+                header.score, header.moveScore, header.longestChain, header.tilesClosed);
+    }
+
+    private static final class Header {
+        int width;
+        int height;
+        int startX;
+        int startY;
+        long seed;
+        long seedState;
+        long gameSeed;
+        long tileState;
+        int state;
+        int pathNodes;
+        int exit;
+        int currentX;
+        int currentY;
+        int tiles;
+        long score;
+        long moveScore;
+        int longestChain;
+        int tilesClosed;
+
+        RectMazeModel createModel() throws IOException {
+            try {
+                return new RectMazeModel(width, height, startX, startY, seed);
+            } catch (IllegalArgumentException ex) {
+                throw new StreamCorruptedException(ex.getMessage());
+            }
+        }
+
+        void check(RectMazeModel model) throws IOException {
+            if (model.getWidth() != width || model.getHeight() != height
+                    || model.getStartX() != startX || model.getStartY() != startY) {
+                throw new StreamCorruptedException("The snapshot is of another area: " + width + "x" + height);
+            }
+        }
+    }
+}
@@ -1,18 +1,17 @@
 package com.ziq.linemaze.rect;
 
-import com.ziq.linemaze.MazeModel;
+import com.ziq.linemaze.LineMazeModel;
 import com.ziq.linemaze.MazeTile;
-
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
+import com.ziq.linemaze.TileSource;
 
 /**
- * 2D Rectangle Maze strategy.
+ * 2D Rectangle Maze.
+ * <p>The rules of the board are the ones of its {@link RectMazeStrategy}, which is immutable and may be shared by
+ * any number of models of the same area.</p>
  *
  * @author ziq
  */
-public class RectMazeModel extends MazeModel {
+public class RectMazeModel extends LineMazeModel {
 
     protected final static int[][] NEXT_POS = {
             {0, -1}, {0, -1}, {1, 0}, {1, 0}, {0, 1}, {0, 1}, {-1, 0}, {-1, 0}
@@ -22,69 +21,88 @@ public class RectMazeModel extends MazeModel {
     };
 
     /**
-     * The exit code of the current strategy.
+     * The default width and height of the play area.
      */
-    private Integer exit;
+    public static final int DEFAULT_SIZE = 8;
 
-    @Override
-    protected void initTiles() {
-        exit = 7;
-        getTiles().clear();
-        for (int i = 1; i <= 8; i++) {
-            // top
-            addTile(createBlockRectTile(i, 0, 3));
-            // bottom
-            addTile(createBlockRectTile(i, 9, 1));
-            // left
-            addTile(createBlockRectTile(0, i, 2));
-            // right
-            addTile(createBlockRectTile(9, i, 0));
-        }
+    /**
+     * Construct the model on the default 8x8 area with a random seed.
+     */
+    public RectMazeModel() {
+        super(RectMazeStrategy.DEFAULT);
+    }
 
-        StartRectTile startRectTile = new StartRectTile();
-        startRectTile.setPosition(new ArrayList<Integer>(Arrays.asList(5, 5)));
-        addTile(startRectTile);
+    /**
+     * Construct the model on the default 8x8 area.
+     *
+     * @param seed the seed of the model.
+     */
+    public RectMazeModel(long seed) {
+        super(RectMazeStrategy.DEFAULT, seed);
+    }
+
+    /**
+     * Construct the model with the start tile at the center of the area and a random seed.
+     *
+     * @param width  the width of the play area.
+     * @param height the height of the play area.
+     */
+    public RectMazeModel(int width, int height) {
+        super(new RectMazeStrategy(width, height));
+    }
 
-        LineRectTile rectTile = new LineRectTile();
-        rectTile.setPosition(new ArrayList<Integer>(Arrays.asList(4, 5)));
-        addTile(rectTile);
+    /**
+     * Construct the model.
+     *
+     * @param width  the width of the play area.
+     * @param height the height of the play area.
+     * @param startX the x coordinate of the start tile, the first tile is placed on its left.
+     * @param startY the y coordinate of the start tile.
+     * @param seed   the seed of the model.
+     */
+    public RectMazeModel(int width, int height, int startX, int startY, long seed) {
+        super(new RectMazeStrategy(width, height, startX, startY), seed);
     }
 
-    private BlockRectTile createBlockRectTile(int x, int y, int direction) {
-        BlockRectTile tile = new BlockRectTile();
-        tile.setPosition(new ArrayList<Integer>(Arrays.asList(x, y)));
-        tile.setDirection(direction);
-        return tile;
+    /**
+     * Construct the model playing the strategy, which may be shared by any number of models.
+     *
+     * @param strategy the strategy.
+     * @param seed     the seed of the model.
+     */
+    public RectMazeModel(RectMazeStrategy strategy, long seed) {
+        super(strategy, seed);
     }
 
     @Override
-    @SuppressWarnings("unchecked")
-    public List<Integer> nextPosition(MazeTile tile) {
-        // converted from exit using game strategy
-        Integer enter = NEXT_EXIT[exit];
-        // point to another exit
-        exit = tile.access(enter);
-        if (exit != null) {
-            return Arrays.asList(tile.getPosition().get(0) + NEXT_POS[exit][0], tile.getPosition().get(1) + NEXT_POS[exit][1]);
-        } else {
-            return null;
-        }
+    public RectMazeStrategy getStrategy() {
+        return (RectMazeStrategy) super.getStrategy();
+    }
 
+    public int getWidth() {
+        return getStrategy().getWidth();
     }
 
-    @Override
-    public MazeTile createTile(List<Integer> position) {
-        LineRectTile tile = new LineRectTile();
-        tile.setPosition(position);
-        return tile;
+    public int getHeight() {
+        return getStrategy().getHeight();
     }
 
-    public Integer getExit() {
-        return exit;
+    TileSource seedSource() {
+        return getSeedSource();
     }
 
-    public void setExit(Integer exit) {
-        this.exit = exit;
+    TileSource tileSource() {
+        return getTileSource();
     }
 
+    void restore(int state, MazeTile currentTile, int pathNodes, Integer exit, long score, long moveScore,
+                 int longestChain, int tilesClosed) {
+        restoreGame(state, currentTile, pathNodes);
+        restoreScore(score, moveScore, longestChain, tilesClosed);
+        setExit(exit);
+        if (getHistory() != null) {
+            // the recorded moves refer to the replaced tiles.
+            getHistory().clear();
+        }
+    }
 }
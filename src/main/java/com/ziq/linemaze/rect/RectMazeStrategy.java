@@ -0,0 +1,119 @@
+package com.ziq.linemaze.rect;
+
+import com.ziq.linemaze.LineMazeStrategy;
+import com.ziq.linemaze.LineTile;
+import com.ziq.linemaze.MazeBoard;
+import com.ziq.linemaze.StartTile;
+import com.ziq.linemaze.Topology;
+
+/**
+ * 2D Rectangle Maze strategy.
+ * <p>The play area covers [1, width] x [1, height]. The walls around it are not stored as tiles: a path leaving the
+ * area is a dead end detected by a bounds check, counting a path node for the wall as the block tiles did. The
+ * board is dense for the areas up to {@link #DENSE_LIMIT} cells and sparse beyond, so that a huge area only costs
+ * the tiles actually placed. The first tile is placed on the left of the start tile.</p>
+ *
+ * @author ziq
+ */
+public class RectMazeStrategy extends LineMazeStrategy {
+
+    /**
+     * The strategy of the default 8x8 area with the start tile at the center.
+     */
+    public static final RectMazeStrategy DEFAULT = new RectMazeStrategy(RectMazeModel.DEFAULT_SIZE,
+            RectMazeModel.DEFAULT_SIZE);
+
+    private final int width;
+    private final int height;
+    private final int startX;
+    private final int startY;
+
+    /**
+     * Construct the strategy with the start tile at the center of the area.
+     *
+     * @param width  the width of the play area.
+     * @param height the height of the play area.
+     */
+    public RectMazeStrategy(int width, int height) {
+        this(width, height, width / 2 + 1, height / 2 + 1);
+    }
+
+    /**
+     * Construct the strategy.
+     *
+     * @param width  the width of the play area.
+     * @param height the height of the play area.
+     * @param startX the x coordinate of the start tile, the first tile is placed on its left.
+     * @param startY the y coordinate of the start tile.
+     */
+    public RectMazeStrategy(int width, int height, int startX, int startY) {
+        super(Topology.SQUARE);
+        if (width < 2 || height < 1) {
+            throw new IllegalArgumentException("Illegal area size: " + width + "x" + height);
+        }
+        if (startX < 2 || startX > width || startY < 1 || startY > height) {
+            throw new IllegalArgumentException("Illegal start position: (" + startX + ", " + startY + ")");
+        }
+        this.width = width;
+        this.height = height;
+        this.startX = startX;
+        this.startY = startY;
+    }
+
+    @Override
+    public MazeBoard createBoard() {
+        return createBoard(1, 1, width, height);
+    }
+
+    @Override
+    public boolean contains(int x, int y) {
+        return x >= 1 && x <= width && y >= 1 && y <= height;
+    }
+
+    @Override
+    protected int getStartExit() {
+        // the first tile is on the left of the start tile.
+        return 7;
+    }
+
+    @Override
+    protected StartTile createStartTile() {
+        return new StartRectTile();
+    }
+
+    @Override
+    protected LineTile createLineTile(int type) {
+        return new LineRectTile(LineRectTileType.get(type));
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public int getStartX() {
+        return startX;
+    }
+
+    @Override
+    public int getStartY() {
+        return startY;
+    }
+
+    /**
+     * Map a deserialized copy of the default strategy back to the shared instance.
+     *
+     * @return the shared strategy, or this strategy.
+     */
+    protected Object readResolve() {
+        RectMazeStrategy d = DEFAULT;
+        if (d != null && width == d.width && height == d.height && startX == d.startX && startY == d.startY) {
+            return d;
+        }
+        return this;
+    }
+}
@@ -0,0 +1,530 @@
+package com.ziq.linemaze.rect;
+
+import com.ziq.linemaze.MazeBoard;
+import com.ziq.linemaze.MazeModel;
+import com.ziq.linemaze.MazeTile;
+import com.ziq.linemaze.TileSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The lookahead search of the best rotation of the current tile of a {@link RectMazeModel}.
+ * <p>For each of the 4 rotations, the search follows the path through the placed tiles as {@link MazeModel#next()}
+ * would, then takes the expectation over the random tile drawn at the end of the path, the player choosing its
+ * best rotation, and so on to the given depth (expectimax). The value of a rotation is the expected number of path
+ * nodes collected, plus a bonus for every line still alive at the horizon.</p>
+ * <p>The model is never copied: the search reads the board and keeps the hypothetical tiles in a small overlay
+ * which is pushed and popped as the search goes. Since a rotated wiring is a wiring too, a drawn tile is valued
+ * once per wiring in board coordinates, 105 instead of 420 sub-states, and the values of the sub-states are kept in
+ * a transposition table shared by the workers.</p>
+ * <p>The search deepens iteratively until the time budget is spent and returns the result of the deepest depth
+ * completed, the first depth always completing. The solver is thread-safe, the model must not be changed while
+ * it is searched.</p>
+ *
+ * @author ziq
+ */
+public class RectMoveSolver {
+
+    /**
+     * The default maximum depth, in moves.
+     */
+    public static final int DEFAULT_DEPTH = 4;
+
+    /**
+     * The default time budget, 5 ms.
+     */
+    public static final long DEFAULT_BUDGET_NANOS = 5000000L;
+
+    /**
+     * The default value of a line still alive at the horizon.
+     */
+    public static final double DEFAULT_ALIVE_BONUS = 4;
+
+    private static final int TYPES = LineRectTileType.COUNT;
+    private static final int ROTATIONS = LineRectTileType.ROTATIONS;
+
+    /**
+     * The board exits of every wiring, indexed by [wiring * 8 + entrance].
+     */
+    private static final byte[] EXIT = new byte[TYPES * LineRectTileType.EXITS];
+
+    /**
+     * The wiring of every type at every rotation, indexed by [type * 4 + rotation].
+     */
+    private static final byte[] WIRING = new byte[TYPES * ROTATIONS];
+
+    static {
+        for (int t = 0; t < TYPES; t++) {
+            LineRectTileType type = LineRectTileType.get(t);
+            for (int e = 0; e < LineRectTileType.EXITS; e++) {
+                EXIT[t * LineRectTileType.EXITS + e] = (byte) type.pair(e);
+            }
+            for (int r = 0; r < ROTATIONS; r++) {
+                WIRING[t * ROTATIONS + r] = (byte) type.rotated(r).getId();
+            }
+        }
+    }
+
+    /**
+     * The cell is empty.
+     */
+    private static final int EMPTY = -1;
+
+    /**
+     * The cell ends the path: outside the area or not a line tile.
+     */
+    private static final int DEAD = -2;
+
+    /**
+     * The remaining depth from which the wirings of a drawn tile are searched in parallel.
+     */
+    private static final int PARALLEL_DEPTH = 2;
+
+    private static final int TABLE_BITS = 16;
+
+    private final ForkJoinPool pool;
+    private final int maxDepth;
+    private final long budgetNanos;
+    private final double aliveBonus;
+
+    /**
+     * The transposition table, two longs per entry: the key xor the value, and the value.
+     */
+    private final AtomicLongArray table = new AtomicLongArray(2 << TABLE_BITS);
+
+    /**
+     * The salt of the keys, changed by every search since the board it values may have changed.
+     */
+    private final AtomicLong searches = new AtomicLong();
+
+    /**
+     * Construct the solver on the common pool with the default depth and budget.
+     */
+    public RectMoveSolver() {
+        this(ForkJoinPool.commonPool(), DEFAULT_DEPTH, DEFAULT_BUDGET_NANOS);
+    }
+
+    /**
+     * Construct the solver.
+     *
+     * @param pool        the pool the search runs in.
+     * @param maxDepth    the maximum depth, in moves, at least 1.
+     * @param budgetNanos the time budget of a search.
+     */
+    public RectMoveSolver(ForkJoinPool pool, int maxDepth, long budgetNanos) {
+        this(pool, maxDepth, budgetNanos, DEFAULT_ALIVE_BONUS);
+    }
+
+    /**
+     * Construct the solver.
+     *
+     * @param pool        the pool the search runs in.
+     * @param maxDepth    the maximum depth, in moves, at least 1.
+     * @param budgetNanos the time budget of a search.
+     * @param aliveBonus  the value of a line still alive at the horizon.
+     */
+    public RectMoveSolver(ForkJoinPool pool, int maxDepth, long budgetNanos, double aliveBonus) {
+        if (maxDepth < 1) {
+            throw new IllegalArgumentException("Illegal depth: " + maxDepth);
+        }
+        this.pool = pool;
+        this.maxDepth = maxDepth;
+        this.budgetNanos = budgetNanos;
+        this.aliveBonus = aliveBonus;
+    }
+
+    /**
+     * Search the best rotation of the current tile.
+     *
+     * @param model the model, which is not changed.
+     * @return the hint, or null if the game has ended or the current tile cannot be rotated.
+     */
+    public Hint solve(RectMazeModel model) {
+        MazeTile current = model.getCurrentTile();
+        if (model.getState() == MazeModel.STATE_END || model.getExit() == null
+                || !(current instanceof AbstractRectTile)) {
+            return null;
+        }
+        AbstractRectTile tile = (AbstractRectTile) current;
+        Search search = new Search(model, tile, System.nanoTime() + budgetNanos);
+        Hint hint = null;
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            double[] values = pool.invoke(new RootTask(search, depth));
+            if (search.timedOut) break;
+            hint = new Hint(values, depth);
+        }
+        return hint;
+    }
+
+    /**
+     * Search the number of {@link MazeModel#rotate()} calls leading to the best move.
+     *
+     * @param model the model, which is not changed.
+     * @return the number of rotations in [0, 4), 0 if there is no move.
+     */
+    public int bestRotations(RectMazeModel model) {
+        Hint hint = solve(model);
+        return hint == null ? 0 : hint.getRotations();
+    }
+
+    private long probe(long key) {
+        int i = (int) (key >>> (64 - TABLE_BITS)) << 1;
+        long value = table.get(i + 1);
+        return (table.get(i) ^ value) == key ? value : -1L;
+    }
+
+    private void store(long key, double value) {
+        int i = (int) (key >>> (64 - TABLE_BITS)) << 1;
+        long bits = Double.doubleToRawLongBits(value);
+        // a torn entry fails the check of the key and is ignored.
+        table.set(i + 1, bits);
+        table.set(i, key ^ bits);
+    }
+
+    /**
+     * The state of one search, shared by its tasks.
+     */
+    private final class Search {
+        final MazeBoard board;
+        final RectMazeModel model;
+        final int x;
+        final int y;
+        final int entrance;
+        final int type;
+        final int rotation;
+        final long deadline;
+        final long salt;
+        volatile boolean timedOut = false;
+
+        Search(RectMazeModel model, AbstractRectTile tile, long deadline) {
+            this.model = model;
+            this.board = model.getBoard();
+            this.x = tile.getX();
+            this.y = tile.getY();
+            this.entrance = RectMazeModel.NEXT_EXIT[model.getExit()];
+            this.type = tile.getType().getId();
+            this.rotation = tile.getRotation() / 90;
+            this.deadline = deadline;
+            this.salt = TileSource.mix64(searches.incrementAndGet());
+        }
+
+        /**
+         * Get the wiring of the placed tile, {@link #EMPTY} or {@link #DEAD}.
+         */
+        int cell(int x, int y) {
+            if (!model.contains(x, y)) return DEAD;
+            MazeTile tile = board.get(x, y);
+            if (tile == null) return EMPTY;
+            if (!(tile instanceof AbstractRectTile)) return DEAD;
+            AbstractRectTile line = (AbstractRectTile) tile;
+            return WIRING[line.getType().getId() * ROTATIONS + line.getRotation() / 90];
+        }
+    }
+
+    /**
+     * The hypothetical tiles on top of the board, private to a task.
+     */
+    private static final class Scratch {
+        final Search search;
+        long[] positions = new long[8];
+        int[] wirings = new int[8];
+        int size = 0;
+        long hash = 0;
+        /**
+         * The values of the wirings of a drawn tile, per remaining depth.
+         */
+        double[][] values;
+
+        /**
+         * The end of the last path followed: the empty cell and its entrance, or dead.
+         */
+        int endX;
+        int endY;
+        int endEntrance;
+        boolean dead;
+
+        Scratch(Search search, int depth) {
+            this.search = search;
+            this.values = new double[depth + 1][TYPES];
+        }
+
+        Scratch copy() {
+            Scratch copy = new Scratch(search, values.length - 1);
+            copy.positions = positions.clone();
+            copy.wirings = wirings.clone();
+            copy.size = size;
+            copy.hash = hash;
+            return copy;
+        }
+
+        void push(int x, int y, int wiring) {
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+                wirings = Arrays.copyOf(wirings, size * 2);
+            }
+            long position = MazeBoard.key(x, y);
+            positions[size] = position;
+            wirings[size] = wiring;
+            size++;
+            hash ^= TileSource.mix64(position * TYPES + wiring);
+        }
+
+        void pop() {
+            size--;
+            hash ^= TileSource.mix64(positions[size] * TYPES + wirings[size]);
+        }
+
+        int cell(int x, int y) {
+            long position = MazeBoard.key(x, y);
+            for (int i = size - 1; i >= 0; i--) {
+                if (positions[i] == position) return wirings[i];
+            }
+            return search.cell(x, y);
+        }
+
+        /**
+         * Follow the path entering the tile, which must be a line tile.
+         *
+         * @return the number of path nodes collected.
+         */
+        int follow(int x, int y, int entrance) {
+            int nodes = 0;
+            int wiring = cell(x, y);
+            while (true) {
+                nodes++;
+                int exit = EXIT[wiring * LineRectTileType.EXITS + entrance];
+                x += RectMazeModel.NEXT_POS[exit][0];
+                y += RectMazeModel.NEXT_POS[exit][1];
+                entrance = RectMazeModel.NEXT_EXIT[exit];
+                wiring = cell(x, y);
+                if (wiring == EMPTY) {
+                    endX = x;
+                    endY = y;
+                    endEntrance = entrance;
+                    dead = false;
+                    return nodes;
+                }
+                if (wiring == DEAD) {
+                    // the start tile and the walls count as a node.
+                    nodes++;
+                    dead = true;
+                    return nodes;
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the expected value of the tile drawn at the empty cell.
+     */
+    private double expect(Scratch scratch, int x, int y, int entrance, int depth) {
+        if (depth == 0) return aliveBonus;
+        Search search = scratch.search;
+        if (search.timedOut) return 0;
+        if (System.nanoTime() > search.deadline) {
+            search.timedOut = true;
+            return 0;
+        }
+        long key = key(scratch, x, y, entrance, depth);
+        long bits = probe(key);
+        if (bits != -1L) return Double.longBitsToDouble(bits);
+
+        double[] values = scratch.values[depth];
+        for (int wiring = 0; wiring < TYPES; wiring++) {
+            values[wiring] = value(scratch, x, y, entrance, wiring, depth);
+        }
+        double value = expectation(values);
+        if (!search.timedOut) {
+            store(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * Get the value of the tile of the wiring placed at the empty cell.
+     */
+    private double value(Scratch scratch, int x, int y, int entrance, int wiring, int depth) {
+        scratch.push(x, y, wiring);
+        int nodes = scratch.follow(x, y, entrance);
+        double value = nodes;
+        if (!scratch.dead) {
+            value += expect(scratch, scratch.endX, scratch.endY, scratch.endEntrance, depth - 1);
+        }
+        scratch.pop();
+        return value;
+    }
+
+    private static long key(Scratch scratch, int x, int y, int entrance, int depth) {
+        long key = TileSource.mix64(scratch.hash
+                ^ TileSource.mix64(MazeBoard.key(x, y) * 8 + entrance)
+                ^ scratch.search.salt + depth);
+        // an empty entry of the table matches the key 0.
+        return key == 0 ? 1 : key;
+    }
+
+    /**
+     * Get the expectation over the types drawn of the best rotation, from the values of the wirings.
+     */
+    private static double expectation(double[] values) {
+        double sum = 0;
+        for (int t = 0; t < TYPES; t++) {
+            double best = values[WIRING[t * ROTATIONS]];
+            for (int r = 1; r < ROTATIONS; r++) {
+                best = Math.max(best, values[WIRING[t * ROTATIONS + r]]);
+            }
+            sum += best;
+        }
+        return sum / TYPES;
+    }
+
+    /**
+     * The search of one depth: one subtask per rotation of the current tile.
+     */
+    private final class RootTask extends RecursiveTask<double[]> {
+        private final Search search;
+        private final int depth;
+
+        RootTask(Search search, int depth) {
+            this.search = search;
+            this.depth = depth;
+        }
+
+        @Override
+        protected double[] compute() {
+            List<RotationTask> tasks = new ArrayList<RotationTask>(ROTATIONS);
+            for (int r = 0; r < ROTATIONS; r++) {
+                tasks.add(new RotationTask(search, r, depth));
+            }
+            ForkJoinTask.invokeAll(tasks);
+            double[] values = new double[ROTATIONS];
+            for (int r = 0; r < ROTATIONS; r++) {
+                values[r] = tasks.get(r).join();
+            }
+            return values;
+        }
+    }
+
+    private final class RotationTask extends RecursiveTask<Double> {
+        private final Search search;
+        private final int rotations;
+        private final int depth;
+
+        RotationTask(Search search, int rotations, int depth) {
+            this.search = search;
+            this.rotations = rotations;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Double compute() {
+            Scratch scratch = new Scratch(search, depth);
+            int wiring = WIRING[search.type * ROTATIONS + ((search.rotation + rotations) & (ROTATIONS - 1))];
+            scratch.push(search.x, search.y, wiring);
+            double value = scratch.follow(search.x, search.y, search.entrance);
+            if (scratch.dead) return value;
+            int remaining = depth - 1;
+            if (remaining < PARALLEL_DEPTH) {
+                return value + expect(scratch, scratch.endX, scratch.endY, scratch.endEntrance, remaining);
+            }
+            // spread the wirings of the first drawn tile over the pool.
+            List<WiringTask> tasks = new ArrayList<WiringTask>(TYPES);
+            for (int w = 0; w < TYPES; w++) {
+                tasks.add(new WiringTask(scratch.copy(), scratch.endX, scratch.endY, scratch.endEntrance, w,
+                        remaining));
+            }
+            ForkJoinTask.invokeAll(tasks);
+            double[] values = new double[TYPES];
+            for (int w = 0; w < TYPES; w++) {
+                values[w] = tasks.get(w).join();
+            }
+            return value + expectation(values);
+        }
+    }
+
+    private final class WiringTask extends RecursiveTask<Double> {
+        private final Scratch scratch;
+        private final int x;
+        private final int y;
+        private final int entrance;
+        private final int wiring;
+        private final int depth;
+
+        WiringTask(Scratch scratch, int x, int y, int entrance, int wiring, int depth) {
+            this.scratch = scratch;
+            this.x = x;
+            this.y = y;
+            this.entrance = entrance;
+            this.wiring = wiring;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Double compute() {
+            return value(scratch, x, y, entrance, wiring, depth);
+        }
+    }
+
+    /**
+     * The result of a search.
+     */
+    public static final class Hint {
+        private final double[] values;
+        private final int depth;
+        private final int rotations;
+
+        Hint(double[] values, int depth) {
+            this.values = values;
+            this.depth = depth;
+            int best = 0;
+            for (int r = 1; r < values.length; r++) {
+                // the fewest rotations on a tie.
+                if (values[r] > values[best]) best = r;
+            }
+            this.rotations = best;
+        }
+
+        /**
+         * Get the number of {@link MazeModel#rotate()} calls leading to the best move.
+         *
+         * @return the number of rotations in [0, 4).
+         */
+        public int getRotations() {
+            return rotations;
+        }
+
+        /**
+         * Get the value of every rotation.
+         *
+         * @param rotations the number of rotations in [0, 4).
+         * @return the expected path nodes plus the bonus of the lines alive at the horizon.
+         */
+        public double getValue(int rotations) {
+            return values[rotations];
+        }
+
+        /**
+         * Get the depth completed within the budget.
+         *
+         * @return the depth, in moves.
+         */
+        public int getDepth() {
+            return depth;
+        }
+
+        @Override
+        public String toString() {
+            return "Hint{" +
+                    "rotations=" + rotations +
+                    ", depth=" + depth +
+                    ", values=" + Arrays.toString(values) +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.ziq.linemaze.rect;
+
+import com.ziq.linemaze.ChunkedMazeBoard;
+import com.ziq.linemaze.MazeTile;
+
+/**
+ * The encoding of the rectangle tiles spilled by a {@link ChunkedMazeBoard}, with the kinds of
+ * {@link RectMazeCodec}.
+ *
+ * @author ziq
+ */
+public class RectTileCodec implements ChunkedMazeBoard.TileCodec {
+
+    /**
+     * The shared codec.
+     */
+    public static final RectTileCodec INSTANCE = new RectTileCodec();
+
+    private static final int KIND_START = 1;
+    private static final int KIND_LINE = 2;
+    private static final int KIND_BLOCK = 3;
+
+    @Override
+    public int kind(MazeTile tile) {
+        if (tile instanceof AbstractRectTile) return KIND_LINE;
+        if (tile instanceof StartRectTile) return KIND_START;
+        if (tile instanceof BlockRectTile) return KIND_BLOCK;
+        throw new IllegalArgumentException("Unsupported tile: " + tile.getClass().getName());
+    }
+
+    @Override
+    public int pack(MazeTile tile) {
+        if (tile instanceof BlockRectTile) {
+            Integer direction = ((BlockRectTile) tile).getDirection();
+            return direction == null ? -1 : direction;
+        }
+        return tile.getPackedState();
+    }
+
+    @Override
+    public MazeTile create(int kind, int packed, int x, int y) {
+        switch (kind) {
+            case KIND_LINE:
+                LineRectTile line = new LineRectTile(LineRectTileType.get(0));
+                line.setPackedState(packed);
+                line.setPosition(x, y);
+                return line;
+            case KIND_START:
+                StartRectTile start = new StartRectTile();
+                start.setPosition(x, y);
+                return start;
+            case KIND_BLOCK:
+                BlockRectTile block = new BlockRectTile();
+                block.setPosition(x, y);
+                block.setDirection(packed < 0 ? null : packed);
+                return block;
+            default:
+                throw new IllegalArgumentException("Unknown tile kind: " + kind);
+        }
+    }
+
+    @Override
+    public boolean isSettled(MazeTile tile) {
+        // the start and the block tiles never change.
+        return !(tile instanceof AbstractRectTile) || tile.isClosed();
+    }
+
+    private Object readResolve() {
+        return INSTANCE;
+    }
+}
@@ -0,0 +1,69 @@
+package com.ziq.linemaze.rect;
+
+import com.ziq.linemaze.ChunkedMazeBoard;
+import com.ziq.linemaze.LineMazeModel;
+import com.ziq.linemaze.MoveHistory;
+
+/**
+ * 2D Rectangle Maze on the whole plane.
+ * <p>The board is a {@link ChunkedMazeBoard}: the settled regions are spilled to disk and their tiles are read back
+ * as new objects, so the model has no undo/redo history nor segment index, which keep the tile objects.</p>
+ *
+ * @author ziq
+ */
+public class UnboundedRectMazeModel extends LineMazeModel {
+
+    /**
+     * Construct the model of the default chunks with a random seed.
+     */
+    public UnboundedRectMazeModel() {
+        super(UnboundedRectMazeStrategy.DEFAULT);
+    }
+
+    /**
+     * Construct the model of the default chunks.
+     *
+     * @param seed the seed of the model.
+     */
+    public UnboundedRectMazeModel(long seed) {
+        super(UnboundedRectMazeStrategy.DEFAULT, seed);
+    }
+
+    /**
+     * Construct the model playing the strategy, which may be shared by any number of models.
+     *
+     * @param strategy the strategy.
+     * @param seed     the seed of the model.
+     */
+    public UnboundedRectMazeModel(UnboundedRectMazeStrategy strategy, long seed) {
+        super(strategy, seed);
+    }
+
+    @Override
+    public UnboundedRectMazeStrategy getStrategy() {
+        return (UnboundedRectMazeStrategy) super.getStrategy();
+    }
+
+    /**
+     * The corridors are not indexed, since the index keeps the tiles spilled by the board.
+     *
+     * @param indexing false.
+     * @throws UnsupportedOperationException if indexing.
+     */
+    @Override
+    public void setSegmentIndexing(boolean indexing) {
+        if (indexing) throw new UnsupportedOperationException("The segment index is not supported.");
+    }
+
+    /**
+     * The history is not supported.
+     *
+     * @param history null.
+     * @throws UnsupportedOperationException if the history is not null.
+     */
+    @Override
+    public void setHistory(MoveHistory history) {
+        if (history != null) throw new UnsupportedOperationException("The history is not supported.");
+        super.setHistory(null);
+    }
+}
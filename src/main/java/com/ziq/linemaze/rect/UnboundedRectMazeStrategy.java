@@ -0,0 +1,100 @@
+package com.ziq.linemaze.rect;
+
+import com.ziq.linemaze.ChunkedMazeBoard;
+import com.ziq.linemaze.LineMazeStrategy;
+import com.ziq.linemaze.LineTile;
+import com.ziq.linemaze.MazeBoard;
+import com.ziq.linemaze.StartTile;
+import com.ziq.linemaze.Topology;
+
+/**
+ * 2D Rectangle Maze strategy without walls.
+ * <p>The play area is the whole plane, so the game only ends when the line runs into the start tile or back into
+ * itself. The board is a {@link ChunkedMazeBoard}, which spills the settled regions to disk, so the memory of an
+ * endless game stays bounded. The start tile is at (0, 0) and the first tile is placed on its left.</p>
+ *
+ * @author ziq
+ */
+public class UnboundedRectMazeStrategy extends LineMazeStrategy {
+
+    /**
+     * The strategy of the default chunks.
+     */
+    public static final UnboundedRectMazeStrategy DEFAULT = new UnboundedRectMazeStrategy(
+            ChunkedMazeBoard.DEFAULT_CHUNK_BITS, ChunkedMazeBoard.DEFAULT_RESIDENT_CHUNKS);
+
+    private final int chunkBits;
+    private final int residentChunks;
+
+    /**
+     * Construct the strategy.
+     *
+     * @param chunkBits      the size of the side of a chunk, as a power of two in [1, 10].
+     * @param residentChunks the number of chunks held in memory, at least 2.
+     */
+    public UnboundedRectMazeStrategy(int chunkBits, int residentChunks) {
+        super(Topology.SQUARE);
+        if (chunkBits < 1 || chunkBits > 10 || residentChunks < 2) {
+            throw new IllegalArgumentException("Illegal chunks: bits=" + chunkBits + ", resident=" + residentChunks);
+        }
+        this.chunkBits = chunkBits;
+        this.residentChunks = residentChunks;
+    }
+
+    @Override
+    public MazeBoard createBoard() {
+        return new ChunkedMazeBoard(RectTileCodec.INSTANCE, chunkBits, residentChunks);
+    }
+
+    @Override
+    public boolean contains(int x, int y) {
+        return true;
+    }
+
+    @Override
+    protected int getStartExit() {
+        // the first tile is on the left of the start tile.
+        return 7;
+    }
+
+    @Override
+    protected StartTile createStartTile() {
+        return new StartRectTile();
+    }
+
+    @Override
+    protected LineTile createLineTile(int type) {
+        return new LineRectTile(LineRectTileType.get(type));
+    }
+
+    @Override
+    public int getStartX() {
+        return 0;
+    }
+
+    @Override
+    public int getStartY() {
+        return 0;
+    }
+
+    public int getChunkBits() {
+        return chunkBits;
+    }
+
+    public int getResidentChunks() {
+        return residentChunks;
+    }
+
+    /**
+     * Map a deserialized copy of the default strategy back to the shared instance.
+     *
+     * @return the shared strategy, or this strategy.
+     */
+    protected Object readResolve() {
+        UnboundedRectMazeStrategy d = DEFAULT;
+        if (d != null && chunkBits == d.chunkBits && residentChunks == d.residentChunks) {
+            return d;
+        }
+        return this;
+    }
+}
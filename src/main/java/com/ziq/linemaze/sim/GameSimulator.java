@@ -0,0 +1,142 @@
+package com.ziq.linemaze.sim;
+
+import com.ziq.linemaze.MazeModel;
+import com.ziq.linemaze.TileSource;
+import com.ziq.linemaze.rect.RectMazeModel;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The headless simulator playing many games in parallel.
+ * <p>The games are split across a {@link ForkJoinPool} into a few tasks per worker. Every task creates its own
+ * {@link RectMazeModel}, reinitialised between its games, and collects them into a private
+ * {@link SimulationResult}, so the tasks share nothing but the policy until the results are merged, and no model
+ * outlives the run on the threads of the pool.</p>
+ * <p>The seed of the i-th game is derived from the seed of the simulation and i alone, so any game can be replayed
+ * with {@link MazeModel#initModel(long)} regardless of the worker that played it.</p>
+ *
+ * @author ziq
+ */
+public class GameSimulator {
+
+    /**
+     * The default limit of moves per game.
+     */
+    public static final int DEFAULT_MAX_MOVES = 10000;
+
+    private final ForkJoinPool pool;
+    private final MovePolicy policy;
+    private final int maxMoves;
+    private final long seed;
+
+    /**
+     * Construct the simulator on the common pool.
+     *
+     * @param policy the move policy.
+     */
+    public GameSimulator(MovePolicy policy) {
+        this(ForkJoinPool.commonPool(), policy, DEFAULT_MAX_MOVES, System.nanoTime());
+    }
+
+    /**
+     * Construct the simulator.
+     *
+     * @param pool     the pool running the games.
+     * @param policy   the move policy.
+     * @param maxMoves the limit of moves per game.
+     * @param seed     the seed of the simulation.
+     */
+    public GameSimulator(ForkJoinPool pool, MovePolicy policy, int maxMoves, long seed) {
+        this.pool = pool;
+        this.policy = policy;
+        this.maxMoves = maxMoves;
+        this.seed = seed;
+    }
+
+    /**
+     * Get the seed of the i-th game.
+     *
+     * @param game the index of the game.
+     * @return the seed of the game.
+     */
+    public long gameSeed(int game) {
+        return TileSource.mix64(seed + game * 0x9e3779b97f4a7c15L);
+    }
+
+    /**
+     * Create the model of a task.
+     *
+     * @return the new model.
+     */
+    protected RectMazeModel createModel() {
+        return new RectMazeModel();
+    }
+
+    /**
+     * Run the games.
+     *
+     * @param games the number of games.
+     * @return the aggregated result.
+     */
+    public SimulationResult run(int games) {
+        long start = System.nanoTime();
+        int threshold = Math.max(1, games / (pool.getParallelism() * 8));
+        SimulationResult result = pool.invoke(new SimulationTask(0, games, threshold));
+        result.setElapsedNanos(System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * Play one game on the model and record it.
+     *
+     * @param model    the model, reinitialised by this method.
+     * @param gameSeed the seed of the game.
+     * @param result   the result to record to.
+     */
+    protected void play(MazeModel model, long gameSeed, SimulationResult result) {
+        model.initModel(gameSeed);
+        int initialTiles = model.getBoard().size();
+        int moves = 0;
+        while (model.getState() > MazeModel.STATE_END && moves < maxMoves) {
+            int rotations = policy.rotations(model) & 3;
+            for (int i = 0; i < rotations; i++) {
+                model.rotate();
+            }
+            model.next();
+            moves++;
+        }
+        result.record(model.getPathNodes(), moves, model.getBoard().size() - initialTiles,
+                model.getState() <= MazeModel.STATE_END);
+    }
+
+    private class SimulationTask extends RecursiveTask<SimulationResult> {
+
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        SimulationTask(int from, int to, int threshold) {
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected SimulationResult compute() {
+            if (to - from <= threshold) {
+                SimulationResult result = new SimulationResult();
+                RectMazeModel model = createModel();
+                for (int i = from; i < to; i++) {
+                    play(model, gameSeed(i), result);
+                }
+                return result;
+            }
+            int middle = (from + to) >>> 1;
+            SimulationTask left = new SimulationTask(from, middle, threshold);
+            left.fork();
+            SimulationResult right = new SimulationTask(middle, to, threshold).compute();
+            return left.join().merge(right);
+        }
+    }
+}
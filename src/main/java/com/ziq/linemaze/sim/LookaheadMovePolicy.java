@@ -0,0 +1,29 @@
+package com.ziq.linemaze.sim;
+
+import com.ziq.linemaze.MazeModel;
+import com.ziq.linemaze.rect.RectMazeModel;
+import com.ziq.linemaze.rect.RectMoveSolver;
+
+/**
+ * The policy rotating the current tile as the {@link RectMoveSolver} advises.
+ *
+ * @author ziq
+ */
+public class LookaheadMovePolicy implements MovePolicy {
+
+    private final RectMoveSolver solver;
+
+    /**
+     * Construct the policy on the solver.
+     *
+     * @param solver the solver.
+     */
+    public LookaheadMovePolicy(RectMoveSolver solver) {
+        this.solver = solver;
+    }
+
+    @Override
+    public int rotations(MazeModel model) {
+        return solver.bestRotations((RectMazeModel) model);
+    }
+}
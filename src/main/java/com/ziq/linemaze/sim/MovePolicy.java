@@ -0,0 +1,21 @@
+package com.ziq.linemaze.sim;
+
+import com.ziq.linemaze.MazeModel;
+
+/**
+ * The policy choosing the move of an automated player.
+ * <p>The policy is shared by all the workers of the {@link GameSimulator}, so the implementation must be
+ * thread-safe, preferably stateless.</p>
+ *
+ * @author ziq
+ */
+public interface MovePolicy {
+
+    /**
+     * Choose how many times the current tile is rotated before {@link MazeModel#next()}.
+     *
+     * @param model the model in its current state.
+     * @return the number of rotations, in [0, 4).
+     */
+    public int rotations(MazeModel model);
+}
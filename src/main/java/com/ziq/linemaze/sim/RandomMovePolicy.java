@@ -0,0 +1,19 @@
+package com.ziq.linemaze.sim;
+
+import com.ziq.linemaze.MazeModel;
+import com.ziq.linemaze.TileSource;
+
+/**
+ * The policy rotating the current tile randomly.
+ * <p>The rotation is a hash of the game seed and the path length, so the policy is stateless and a game played
+ * with it is replayable from its seed.</p>
+ *
+ * @author ziq
+ */
+public class RandomMovePolicy implements MovePolicy {
+
+    @Override
+    public int rotations(MazeModel model) {
+        return (int) (TileSource.mix64(model.getGameSeed() + model.getPathNodes() * 0x9e3779b97f4a7c15L) >>> 62);
+    }
+}
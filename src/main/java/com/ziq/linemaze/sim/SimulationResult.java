@@ -0,0 +1,188 @@
+package com.ziq.linemaze.sim;
+
+import java.util.Arrays;
+
+/**
+ * The aggregated result of a batch of simulated games.
+ * <p>The distributions are kept as histograms indexed by value, so the results of the workers merge in time
+ * proportional to the longest game rather than the number of games.</p>
+ *
+ * @author ziq
+ */
+public class SimulationResult {
+
+    private long games = 0;
+    private long moves = 0;
+    private long tilesPlaced = 0;
+    private long unfinished = 0;
+    private long[] pathLengths = new long[64];
+    private long[] gameLengths = new long[64];
+    private long elapsedNanos = 0;
+
+    /**
+     * Record one game.
+     *
+     * @param pathLength  the number of path nodes collected.
+     * @param gameLength  the number of moves played.
+     * @param tilesPlaced the number of tiles placed.
+     * @param finished    whether the game reached its end.
+     */
+    public void record(int pathLength, int gameLength, int tilesPlaced, boolean finished) {
+        games++;
+        moves += gameLength;
+        this.tilesPlaced += tilesPlaced;
+        if (!finished) unfinished++;
+        pathLengths = increment(pathLengths, pathLength);
+        gameLengths = increment(gameLengths, gameLength);
+    }
+
+    private static long[] increment(long[] histogram, int value) {
+        if (value >= histogram.length) {
+            histogram = Arrays.copyOf(histogram, Math.max(histogram.length * 2, value + 1));
+        }
+        histogram[value]++;
+        return histogram;
+    }
+
+    private static long[] add(long[] a, long[] b) {
+        if (b.length > a.length) {
+            a = Arrays.copyOf(a, b.length);
+        }
+        for (int i = 0; i < b.length; i++) {
+            a[i] += b[i];
+        }
+        return a;
+    }
+
+    /**
+     * Merge the other result into this one.
+     *
+     * @param other the other result.
+     * @return this result.
+     */
+    public SimulationResult merge(SimulationResult other) {
+        games += other.games;
+        moves += other.moves;
+        tilesPlaced += other.tilesPlaced;
+        unfinished += other.unfinished;
+        pathLengths = add(pathLengths, other.pathLengths);
+        gameLengths = add(gameLengths, other.gameLengths);
+        return this;
+    }
+
+    private static double mean(long[] histogram, long count) {
+        if (count == 0) return 0;
+        double sum = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            sum += (double) i * histogram[i];
+        }
+        return sum / count;
+    }
+
+    private static int percentile(long[] histogram, long count, double p) {
+        long rank = (long) Math.ceil(p * count);
+        long seen = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            seen += histogram[i];
+            if (seen >= rank && seen > 0) return i;
+        }
+        return 0;
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    public long getMoves() {
+        return moves;
+    }
+
+    public long getTilesPlaced() {
+        return tilesPlaced;
+    }
+
+    /**
+     * Get the number of games stopped by the move limit before reaching their end.
+     *
+     * @return the number of unfinished games.
+     */
+    public long getUnfinished() {
+        return unfinished;
+    }
+
+    /**
+     * Get the distribution of the path length.
+     *
+     * @return the histogram indexed by the number of path nodes.
+     */
+    public long[] getPathLengthHistogram() {
+        return pathLengths.clone();
+    }
+
+    /**
+     * Get the distribution of the game length.
+     *
+     * @return the histogram indexed by the number of moves.
+     */
+    public long[] getGameLengthHistogram() {
+        return gameLengths.clone();
+    }
+
+    public double getMeanPathLength() {
+        return mean(pathLengths, games);
+    }
+
+    public double getMeanGameLength() {
+        return mean(gameLengths, games);
+    }
+
+    /**
+     * Get the percentile of the path length.
+     *
+     * @param p the percentile in [0, 1].
+     * @return the path length.
+     */
+    public int getPathLengthPercentile(double p) {
+        return percentile(pathLengths, games, p);
+    }
+
+    /**
+     * Get the percentile of the game length.
+     *
+     * @param p the percentile in [0, 1].
+     * @return the game length.
+     */
+    public int getGameLengthPercentile(double p) {
+        return percentile(gameLengths, games, p);
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Get the throughput of the simulation.
+     *
+     * @return the number of games per second.
+     */
+    public double getGamesPerSecond() {
+        return elapsedNanos == 0 ? 0 : games * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "SimulationResult{" +
+                "games=" + games +
+                ", moves=" + moves +
+                ", tilesPlaced=" + tilesPlaced +
+                ", unfinished=" + unfinished +
+                ", meanPathLength=" + getMeanPathLength() +
+                ", meanGameLength=" + getMeanGameLength() +
+                ", gamesPerSecond=" + getGamesPerSecond() +
+                '}';
+    }
+}